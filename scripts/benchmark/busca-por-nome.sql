@@ -0,0 +1,65 @@
+-- ============================================
+-- Benchmark: busca por nome (LIKE '%termo%')
+-- ============================================
+-- Compara a latência da busca por trecho de nome com e sem o índice
+-- trigram (pg_trgm) criado na migration V4, sobre 1 milhão de artistas.
+-- Roda em um schema separado ("benchmark"), sem tocar nas tabelas da API.
+--
+-- Uso (profile local):
+--   psql -h localhost -p 5435 -U postgres -d artistas_db -f scripts/benchmark/busca-por-nome.sql
+-- ============================================
+
+\timing on
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+DROP SCHEMA IF EXISTS benchmark CASCADE;
+CREATE SCHEMA benchmark;
+
+CREATE TABLE benchmark.artista (
+    id BIGSERIAL PRIMARY KEY,
+    nome VARCHAR(200) NOT NULL,
+    tipo VARCHAR(20) NOT NULL
+);
+
+INSERT INTO benchmark.artista (nome, tipo)
+SELECT 'Artista ' || substr(md5(g::text), 1, 12) || ' ' || g,
+       CASE WHEN g % 2 = 0 THEN 'CANTOR' ELSE 'BANDA' END
+FROM generate_series(1, 1000000) AS g;
+
+CREATE INDEX ON benchmark.artista (nome, id);
+ANALYZE benchmark.artista;
+
+-- 1) Caminho antigo: LOWER(nome) LIKE sem índice trigram (seq scan)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM benchmark.artista
+WHERE LOWER(nome) LIKE '%' || LOWER('c4ca42') || '%'
+ORDER BY nome
+LIMIT 10;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM benchmark.artista
+WHERE LOWER(nome) LIKE '%' || LOWER('c4ca42') || '%';
+
+-- 2) Mesmo LIKE atendido pelo índice GIN trigram
+CREATE INDEX ON benchmark.artista USING gin (LOWER(nome) gin_trgm_ops);
+ANALYZE benchmark.artista;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM benchmark.artista
+WHERE LOWER(nome) LIKE '%' || LOWER('c4ca42') || '%'
+ORDER BY nome
+LIMIT 10;
+
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT COUNT(*) FROM benchmark.artista
+WHERE LOWER(nome) LIKE '%' || LOWER('c4ca42') || '%';
+
+-- 3) Busca por relevância (mesma consulta de ArtistaRepository.buscarPorNomeRelevancia)
+EXPLAIN (ANALYZE, BUFFERS)
+SELECT * FROM benchmark.artista a
+WHERE LOWER(a.nome) LIKE '%' || LOWER('c4ca42') || '%' OR LOWER(a.nome) % LOWER('c4ca42')
+ORDER BY similarity(LOWER(a.nome), LOWER('c4ca42')) DESC, a.nome, a.id
+LIMIT 10;
+
+DROP SCHEMA benchmark CASCADE;
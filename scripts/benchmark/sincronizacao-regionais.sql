@@ -0,0 +1,111 @@
+-- ============================================
+-- Benchmark: sincronização de regionais
+-- ============================================
+-- Compara o custo de aplicar as regras de sincronização registro a registro
+-- (um comando por regional, como o save() por entidade) com o caminho em
+-- conjunto usado por RegionalSyncRepository (staging + UPDATE ... FROM /
+-- INSERT ... SELECT), sobre 100 mil regionais.
+-- Roda em um schema separado ("benchmark"), sem tocar nas tabelas da API.
+--
+-- Payload simulado: 90% iguais, 5% com nome alterado, 5% novas;
+-- 5% das regionais existentes ficam ausentes.
+--
+-- Uso (profile local):
+--   psql -h localhost -p 5435 -U postgres -d artistas_db -f scripts/benchmark/sincronizacao-regionais.sql
+-- ============================================
+
+\timing on
+
+DROP SCHEMA IF EXISTS benchmark CASCADE;
+CREATE SCHEMA benchmark;
+
+CREATE TABLE benchmark.regional (
+    id SERIAL PRIMARY KEY,
+    id_externo INTEGER NOT NULL,
+    nome VARCHAR(200) NOT NULL,
+    ativo BOOLEAN NOT NULL DEFAULT TRUE
+);
+CREATE INDEX ON benchmark.regional (id_externo) WHERE ativo = TRUE;
+
+CREATE TABLE benchmark.payload (
+    id_externo INTEGER PRIMARY KEY,
+    nome VARCHAR(200)
+);
+
+INSERT INTO benchmark.payload (id_externo, nome)
+SELECT g,
+       CASE WHEN g % 20 = 0 THEN 'Regional ' || g || ' (alterada)' ELSE 'Regional ' || g END
+FROM generate_series(5001, 105000) AS g;
+ANALYZE benchmark.payload;
+
+-- Estado inicial: regionais 1..100000 ativas
+CREATE TABLE benchmark.regional_inicial AS
+SELECT g AS id_externo, 'Regional ' || g AS nome
+FROM generate_series(1, 100000) AS g;
+
+-- 1) Registro a registro: uma consulta e até dois comandos por regional
+INSERT INTO benchmark.regional (id_externo, nome) SELECT id_externo, nome FROM benchmark.regional_inicial;
+ANALYZE benchmark.regional;
+
+DO $$
+DECLARE
+    p RECORD;
+    atual RECORD;
+BEGIN
+    FOR p IN SELECT * FROM benchmark.payload LOOP
+        SELECT * INTO atual FROM benchmark.regional WHERE id_externo = p.id_externo AND ativo = TRUE;
+        IF NOT FOUND THEN
+            INSERT INTO benchmark.regional (id_externo, nome) VALUES (p.id_externo, p.nome);
+        ELSIF atual.nome IS DISTINCT FROM p.nome THEN
+            UPDATE benchmark.regional SET ativo = FALSE WHERE id = atual.id;
+            INSERT INTO benchmark.regional (id_externo, nome) VALUES (p.id_externo, p.nome);
+        END IF;
+    END LOOP;
+
+    FOR atual IN SELECT * FROM benchmark.regional r
+                 WHERE r.ativo = TRUE
+                   AND NOT EXISTS (SELECT 1 FROM benchmark.payload p WHERE p.id_externo = r.id_externo) LOOP
+        UPDATE benchmark.regional SET ativo = FALSE WHERE id = atual.id;
+    END LOOP;
+END $$;
+
+SELECT ativo, COUNT(*) FROM benchmark.regional GROUP BY ativo;
+
+-- 2) Em conjunto: staging + 3 comandos (mesmo SQL de RegionalSyncRepository)
+TRUNCATE benchmark.regional RESTART IDENTITY;
+INSERT INTO benchmark.regional (id_externo, nome) SELECT id_externo, nome FROM benchmark.regional_inicial;
+ANALYZE benchmark.regional;
+
+BEGIN;
+
+CREATE TEMP TABLE regional_staging (
+    id_externo INTEGER PRIMARY KEY,
+    nome VARCHAR(200)
+) ON COMMIT DROP;
+
+INSERT INTO regional_staging SELECT * FROM benchmark.payload;
+
+UPDATE benchmark.regional r
+SET ativo = FALSE
+FROM regional_staging s
+WHERE r.id_externo = s.id_externo
+  AND r.ativo = TRUE
+  AND r.nome IS DISTINCT FROM s.nome;
+
+UPDATE benchmark.regional r
+SET ativo = FALSE
+WHERE r.ativo = TRUE
+  AND NOT EXISTS (SELECT 1 FROM regional_staging s WHERE s.id_externo = r.id_externo);
+
+INSERT INTO benchmark.regional (id_externo, nome, ativo)
+SELECT s.id_externo, s.nome, TRUE
+FROM regional_staging s
+WHERE NOT EXISTS (
+    SELECT 1 FROM benchmark.regional r WHERE r.id_externo = s.id_externo AND r.ativo = TRUE
+);
+
+COMMIT;
+
+SELECT ativo, COUNT(*) FROM benchmark.regional GROUP BY ativo;
+
+DROP SCHEMA benchmark CASCADE;
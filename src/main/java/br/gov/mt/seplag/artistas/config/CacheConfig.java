@@ -0,0 +1,85 @@
+package br.gov.mt.seplag.artistas.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Cache em memória (Caffeine) das leituras do catálogo, com tamanho e TTL por cache.
+ * As estatísticas de cada cache são exportadas pelo actuator (cache.gets, cache.evictions...).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String ALBUNS = "albuns";
+    public static final String ARTISTAS = "artistas";
+    public static final String REGIONAIS_ATIVAS = "regionais-ativas";
+
+    @Value("${cache.albuns.max-size:10000}")
+    private long albunsMaxSize;
+
+    @Value("${cache.albuns.ttl:4m}")
+    private Duration albunsTtl;
+
+    @Value("${cache.artistas.max-size:10000}")
+    private long artistasMaxSize;
+
+    @Value("${cache.artistas.ttl:30m}")
+    private Duration artistasTtl;
+
+    @Value("${cache.regionais-ativas.ttl:1h}")
+    private Duration regionaisAtivasTtl;
+
+    @Value("${minio.presigned-url-cache.safety-margin:300}")
+    private long presignedUrlSafetyMargin;
+
+    /**
+     * Os caches ficam atrás de um proxy transacional: evicts feitos dentro de uma
+     * transação só são aplicados após o commit, evitando que uma leitura concorrente
+     * recoloque no cache o estado anterior à escrita.
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        validarTtlAlbuns(albunsTtl, presignedUrlSafetyMargin);
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(ALBUNS, Caffeine.newBuilder()
+                .maximumSize(albunsMaxSize)
+                .expireAfterWrite(albunsTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(ARTISTAS, Caffeine.newBuilder()
+                .maximumSize(artistasMaxSize)
+                .expireAfterWrite(artistasTtl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(REGIONAIS_ATIVAS, Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(regionaisAtivasTtl)
+                .recordStats()
+                .build());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    /**
+     * O AlbumDTO em cache carrega URLs pré-assinadas, e o MinioService reutiliza uma URL
+     * até faltar safety-margin para ela expirar: só com TTL <= safety-margin toda URL
+     * servida pelo cache ainda é válida.
+     */
+    static void validarTtlAlbuns(Duration albunsTtl, long safetyMarginSegundos) {
+        if (albunsTtl.toSeconds() > safetyMarginSegundos) {
+            throw new IllegalStateException("cache.albuns.ttl (" + albunsTtl + ") maior que "
+                    + "minio.presigned-url-cache.safety-margin (" + safetyMarginSegundos + "s): "
+                    + "o cache de álbuns serviria URLs pré-assinadas já expiradas");
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package br.gov.mt.seplag.artistas.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@Slf4j
+public class ExecutorConfig {
+
+    @Value("${minio.upload.concurrency:4}")
+    private int uploadConcurrency;
+
+    @Value("${minio.thumbnails.threads:2}")
+    private int thumbnailThreads;
+
+    @Value("${minio.thumbnails.queue-capacity:200}")
+    private int thumbnailQueueCapacity;
+
+    /**
+     * Executor dos uploads para o MinIO: threads virtuais, mas em número fixo,
+     * limitando quantos PUTs simultâneos cada réplica faz no storage.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService uploadExecutor() {
+        log.info("Executor de uploads: {} threads virtuais", uploadConcurrency);
+        return Executors.newFixedThreadPool(uploadConcurrency,
+                Thread.ofVirtual().name("minio-upload-", 0).factory());
+    }
+
+    /**
+     * Executor da geração de miniaturas: trabalho de CPU, então poucas threads de
+     * plataforma e fila limitada. Com a fila cheia a tarefa é recusada e a imagem
+     * fica sem miniaturas (a API devolve o original), sem atrasar o upload.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService thumbnailExecutor() {
+        log.info("Executor de miniaturas: {} threads, fila de {}", thumbnailThreads, thumbnailQueueCapacity);
+        return new ThreadPoolExecutor(thumbnailThreads, thumbnailThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(thumbnailQueueCapacity),
+                Thread.ofPlatform().name("thumbnail-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Executor da sincronização de regionais: uma thread virtual, já que o
+     * RegionalSyncScheduler garante no máximo uma execução por vez.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService regionalSyncExecutor() {
+        return Executors.newSingleThreadExecutor(Thread.ofVirtual().name("regional-sync-", 0).factory());
+    }
+}
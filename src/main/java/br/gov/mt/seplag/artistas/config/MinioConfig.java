@@ -3,11 +3,20 @@ package br.gov.mt.seplag.artistas.config;
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
+import io.minio.SetBucketLifecycleArgs;
+import io.minio.messages.Expiration;
+import io.minio.messages.LifecycleConfiguration;
+import io.minio.messages.LifecycleRule;
+import io.minio.messages.RuleFilter;
+import io.minio.messages.Status;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.ZonedDateTime;
+import java.util.List;
+
 @Configuration
 @Slf4j
 public class MinioConfig {
@@ -44,6 +53,23 @@ public class MinioConfig {
             } else {
                 log.info("Bucket já existe: {}", bucketName);
             }
+
+            // Partes de uploads em partes abandonados expiram sozinhas
+            LifecycleRule expirarUploads = new LifecycleRule(
+                    Status.ENABLED,
+                    null,
+                    new Expiration((ZonedDateTime) null, 1, null),
+                    new RuleFilter("uploads/"),
+                    "expirar-uploads-em-partes",
+                    null,
+                    null,
+                    null);
+            minioClient.setBucketLifecycle(
+                    SetBucketLifecycleArgs.builder()
+                            .bucket(bucketName)
+                            .config(new LifecycleConfiguration(List.of(expirarUploads)))
+                            .build()
+            );
         } catch (Exception e) {
             log.error("Erro ao configurar MinIO: {}", e.getMessage());
         }
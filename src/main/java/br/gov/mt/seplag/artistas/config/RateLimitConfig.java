@@ -0,0 +1,58 @@
+package br.gov.mt.seplag.artistas.config;
+
+import br.gov.mt.seplag.artistas.security.ProxyManagerRateLimitBucketStore;
+import br.gov.mt.seplag.artistas.security.RateLimitBucketStore;
+import io.github.bucket4j.distributed.jdbc.BucketTableSettings;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfiguration;
+import io.github.bucket4j.distributed.jdbc.SQLProxyConfigurationBuilder;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.postgresql.PostgreSQLSelectForUpdateBasedProxyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Rate limit distribuído (rate-limit.backend=postgres), com o estado dos buckets
+ * na tabela rate_limit_bucket. No backend local o store é o LocalRateLimitBucketStore.
+ */
+@Configuration
+@ConditionalOnProperty(name = "rate-limit.backend", havingValue = "postgres")
+public class RateLimitConfig {
+
+    @Value("${rate-limit.bucket-store.max-size:100000}")
+    private long maxSize;
+
+    @Value("${rate-limit.bucket-store.idle-timeout:1m}")
+    private Duration idleTimeout;
+
+    @Value("${rate-limit.distributed.max-unsynchronized-tokens:2}")
+    private long maxUnsynchronizedTokens;
+
+    @Value("${rate-limit.distributed.max-unsynchronized-timeout:1s}")
+    private Duration maxUnsynchronizedTimeout;
+
+    @Bean
+    public ProxyManager<String> rateLimitProxyManager(DataSource dataSource) {
+        SQLProxyConfiguration<String> configuration = SQLProxyConfigurationBuilder.builder()
+                .withTableSettings(BucketTableSettings.customSettings("rate_limit_bucket", "id", "state"))
+                .withPrimaryKeyMapper(PrimaryKeyMapper.STRING)
+                .build(dataSource);
+        return new PostgreSQLSelectForUpdateBasedProxyManager<>(configuration);
+    }
+
+    @Bean
+    public RateLimitBucketStore rateLimitBucketStore(ProxyManager<String> rateLimitProxyManager) {
+        // Delaying: até N tokens ou T de tempo consumidos localmente antes de ir ao banco,
+        // tirando o round-trip da maioria das requisições. O excesso tolerado por réplica é limitado a N.
+        DelayParameters delay = new DelayParameters(maxUnsynchronizedTokens, maxUnsynchronizedTimeout);
+        return new ProxyManagerRateLimitBucketStore(rateLimitProxyManager, Optimizations.delaying(delay),
+                maxSize, idleTimeout);
+    }
+}
@@ -1,18 +1,103 @@
 package br.gov.mt.seplag.artistas.config;
 
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
+@Slf4j
 public class RestTemplateConfig {
 
+    @Value("${external.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${external.http.max-connections-per-route:10}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${external.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${external.http.read-timeout:30s}")
+    private Duration readTimeout;
+
+    @Value("${external.http.connection-ttl:5m}")
+    private Duration connectionTtl;
+
+    @Value("${external.http.idle-timeout:30s}")
+    private Duration idleTimeout;
+
+    /**
+     * Pool de conexões keep-alive das chamadas externas, com limite por rota.
+     * As métricas do pool saem em httpcomponents.httpclient.pool.* no actuator.
+     */
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+        log.info("Pool HTTP de saída: {} conexões, {} por rota", maxConnections, maxConnectionsPerRoute);
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setTimeToLive(TimeValue.ofMilliseconds(connectionTtl.toMillis()))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "external-api").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    /**
+     * Cliente Apache HttpClient 5. Descompressão gzip/deflate já vem ativa; as
+     * tentativas automáticas do cliente ficam desligadas porque o retry é feito
+     * pelo Resilience4j, com backoff e circuit breaker.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+        return HttpClients.custom()
+                .setConnectionManager(httpConnectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeout.toMillis()))
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * Montado pelo RestTemplateBuilder para ganhar a instrumentação do actuator
+     * (latência em http.client.requests).
+     */
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient httpClient) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .build();
+    }
+
+    @Bean
+    public Retry regionaisRetry(RetryRegistry retryRegistry) {
+        return retryRegistry.retry("regionais");
+    }
+
     @Bean
-    public RestTemplate restTemplate() {
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(10000);
-        factory.setReadTimeout(30000);
-        return new RestTemplate(factory);
+    public CircuitBreaker regionaisCircuitBreaker(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return circuitBreakerRegistry.circuitBreaker("regionais");
     }
 }
@@ -0,0 +1,19 @@
+package br.gov.mt.seplag.artistas.config;
+
+import br.gov.mt.seplag.artistas.service.FormatoCatalogo;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * ?formato=csv e ?formato=CSV valem igual; um valor desconhecido vira
+     * MethodArgumentTypeMismatchException (400) em vez de chegar ao controller.
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, FormatoCatalogo.class, FormatoCatalogo::deNome);
+    }
+}
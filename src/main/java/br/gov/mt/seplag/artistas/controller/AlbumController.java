@@ -2,23 +2,44 @@ package br.gov.mt.seplag.artistas.controller;
 
 import br.gov.mt.seplag.artistas.dto.AlbumDTO;
 import br.gov.mt.seplag.artistas.dto.AlbumImagemDTO;
+import br.gov.mt.seplag.artistas.dto.CursorPageDTO;
+import br.gov.mt.seplag.artistas.dto.ImportacaoResultadoDTO;
+import br.gov.mt.seplag.artistas.dto.UploadEmPartesDTO;
+import br.gov.mt.seplag.artistas.exception.InvalidImportException;
 import br.gov.mt.seplag.artistas.service.AlbumService;
 import br.gov.mt.seplag.artistas.service.AlbumImagemService;
+import br.gov.mt.seplag.artistas.service.ExportacaoService;
+import br.gov.mt.seplag.artistas.service.FormatoCatalogo;
+import br.gov.mt.seplag.artistas.service.ImportacaoService;
+import br.gov.mt.seplag.artistas.service.MetadadosObjeto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -28,11 +49,18 @@ import java.util.List;
 @SecurityRequirement(name = "bearerAuth")
 public class AlbumController {
 
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
     private final AlbumService albumService;
     private final AlbumImagemService albumImagemService;
+    private final ImportacaoService importacaoService;
+    private final ExportacaoService exportacaoService;
+
+    @Value("${minio.conteudo.cache-max-age:365d}")
+    private Duration conteudoCacheMaxAge;
 
     @GetMapping
-    @Operation(summary = "Listar todos os álbuns", description = "Retorna uma lista paginada de álbuns com opções de filtro por tipo de artista")
+    @Operation(summary = "Listar todos os álbuns", description = "Retorna uma lista paginada de álbuns com opções de filtro por título, tipo ou nome de artista")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Lista de álbuns retornada com sucesso"),
             @ApiResponse(responseCode = "401", description = "Não autorizado")
@@ -42,11 +70,17 @@ public class AlbumController {
             @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
             @Parameter(description = "Direção da ordenação (asc ou desc)") @RequestParam(defaultValue = "asc") String sort,
             @Parameter(description = "Filtrar por tipo de artista (CANTOR ou BANDA)") @RequestParam(required = false) String tipo,
-            @Parameter(description = "Filtrar por nome do artista") @RequestParam(required = false) String artista) {
+            @Parameter(description = "Filtrar por nome do artista") @RequestParam(required = false) String artista,
+            @Parameter(description = "Filtrar por trecho do título") @RequestParam(required = false) String titulo,
+            @Parameter(description = "Ordenar a busca por título pela relevância em vez do título") @RequestParam(defaultValue = "false") boolean relevancia) {
 
         Page<AlbumDTO> albuns;
 
-        if (tipo != null && !tipo.isEmpty()) {
+        if (titulo != null && !titulo.isEmpty()) {
+            albuns = relevancia
+                    ? albumService.buscarPorTituloRelevancia(titulo, page, size)
+                    : albumService.buscarPorTitulo(titulo, page, size, sort);
+        } else if (tipo != null && !tipo.isEmpty()) {
             albuns = albumService.buscarPorTipoArtista(tipo, page, size, sort);
         } else if (artista != null && !artista.isEmpty()) {
             albuns = albumService.buscarPorNomeArtista(artista, page, size, sort);
@@ -57,16 +91,47 @@ public class AlbumController {
         return ResponseEntity.ok(albuns);
     }
 
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Listar álbuns por cursor", description = "Paginação keyset ordenada por título. " +
+            "Envie cursor vazio para a primeira página e o nextCursor retornado para as seguintes. " +
+            "Não calcula o total de registros")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de álbuns retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<CursorPageDTO<AlbumDTO>> listarPorCursor(
+            @Parameter(description = "Cursor opaco retornado em nextCursor (vazio para a primeira página)") @RequestParam String cursor,
+            @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Direção da ordenação (asc ou desc)") @RequestParam(defaultValue = "asc") String sort) {
+        return ResponseEntity.ok(albumService.listarPorCursor(cursor, size, sort));
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Buscar álbum por ID", description = "Retorna um álbum específico pelo seu ID")
+    @Operation(summary = "Buscar álbum por ID",
+            description = "Retorna um álbum específico pelo seu ID. Responde com ETag fraco; com If-None-Match " +
+                    "correspondente, devolve 304 sem carregar artistas e imagens")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Álbum encontrado"),
+            @ApiResponse(responseCode = "304", description = "Álbum não modificado (If-None-Match)"),
             @ApiResponse(responseCode = "404", description = "Álbum não encontrado"),
             @ApiResponse(responseCode = "401", description = "Não autorizado")
     })
     public ResponseEntity<AlbumDTO> buscarPorId(
-            @Parameter(description = "ID do álbum") @PathVariable Long id) {
-        return ResponseEntity.ok(albumService.buscarPorId(id));
+            @Parameter(description = "ID do álbum") @PathVariable Long id,
+            WebRequest request) {
+        // Consulta só da versão: a maioria das requisições de clientes que fazem polling termina aqui
+        String versao = albumService.buscarVersao(id);
+        if (request.checkNotModified(albumService.etag(versao))) {
+            return null;
+        }
+
+        AlbumDTO album = albumService.buscarPorId(id);
+        if (!versao.equals(albumService.versaoDe(album))) {
+            // Cache anterior à alteração (invalidação ainda não chegou): não associa o ETag novo ao corpo antigo
+            album = albumService.recarregar(id);
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(album);
     }
 
     @PostMapping
@@ -82,18 +147,89 @@ public class AlbumController {
         return ResponseEntity.status(HttpStatus.CREATED).body(criado);
     }
 
+    @PostMapping(value = "/importacao", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    @Operation(summary = "Importação em massa",
+            description = "Importa álbuns e seus artistas de um corpo NDJSON ({\"titulo\", \"artistas\": [{\"nome\", \"tipo\"}]} por linha) " +
+                    "ou CSV (titulo,artistas com Nome:TIPO separados por |). Artistas são associados pelo nome e criados quando não existem. " +
+                    "Linhas inválidas não interrompem a importação e vêm no relatório com o número da linha")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Importação processada; o relatório traz as linhas com erro"),
+            @ApiResponse(responseCode = "400", description = "Charset do corpo desconhecido"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado"),
+            @ApiResponse(responseCode = "415", description = "Content-Type diferente de application/x-ndjson e text/csv")
+    })
+    public ResponseEntity<ImportacaoResultadoDTO> importar(HttpServletRequest request)
+            throws IOException, HttpMediaTypeNotSupportedException {
+        FormatoCatalogo formato = formatoImportacao(MediaType.parseMediaType(request.getContentType()));
+        Charset charset = charsetImportacao(request.getCharacterEncoding());
+        return ResponseEntity.ok(importacaoService.importar(request.getInputStream(), charset, formato));
+    }
+
+    /**
+     * O consumes já restringiu o Content-Type aos dois formatos; o formato sai do
+     * tipo exato, sem cair em CSV por exclusão.
+     */
+    private static FormatoCatalogo formatoImportacao(MediaType contentType) throws HttpMediaTypeNotSupportedException {
+        if (contentType.equalsTypeAndSubtype(MediaType.APPLICATION_NDJSON)) {
+            return FormatoCatalogo.NDJSON;
+        }
+        if (contentType.equalsTypeAndSubtype(TEXT_CSV)) {
+            return FormatoCatalogo.CSV;
+        }
+        throw new HttpMediaTypeNotSupportedException(contentType, List.of(MediaType.APPLICATION_NDJSON, TEXT_CSV));
+    }
+
+    private static Charset charsetImportacao(String nome) {
+        if (nome == null) {
+            return StandardCharsets.UTF_8;
+        }
+        try {
+            return Charset.forName(nome);
+        } catch (IllegalArgumentException e) {
+            // IllegalCharsetNameException ou UnsupportedCharsetException
+            throw new InvalidImportException("Charset não suportado no corpo da importação: " + nome);
+        }
+    }
+
+    @GetMapping("/exportacao")
+    @Operation(summary = "Exportar catálogo",
+            description = "Exporta todos os álbuns, com artistas e chaves das imagens, em NDJSON ou CSV. " +
+                    "A resposta é escrita em stream a partir de um cursor do banco, em memória constante")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Catálogo exportado"),
+            @ApiResponse(responseCode = "400", description = "Formato desconhecido"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @Parameter(description = "Formato do arquivo (ndjson ou csv)") @RequestParam(defaultValue = "ndjson") FormatoCatalogo formato) {
+        MediaType contentType = formato == FormatoCatalogo.CSV
+                ? new MediaType(TEXT_CSV, StandardCharsets.UTF_8)
+                : MediaType.APPLICATION_NDJSON;
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"catalogo." + formato.name().toLowerCase() + "\"")
+                .body(saida -> exportacaoService.exportar(saida, formato));
+    }
+
     @PutMapping("/{id}")
     @Operation(summary = "Atualizar álbum", description = "Atualiza os dados de um álbum existente")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Álbum atualizado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Álbum não encontrado"),
             @ApiResponse(responseCode = "400", description = "Dados inválidos"),
-            @ApiResponse(responseCode = "401", description = "Não autorizado")
+            @ApiResponse(responseCode = "401", description = "Não autorizado"),
+            @ApiResponse(responseCode = "409", description = "Versão do corpo desatualizada ou escrita concorrente"),
+            @ApiResponse(responseCode = "412", description = "If-Match diferente da versão atual")
     })
     public ResponseEntity<AlbumDTO> atualizar(
             @Parameter(description = "ID do álbum") @PathVariable Long id,
-            @Parameter(description = "Dados atualizados do álbum") @Valid @RequestBody AlbumDTO albumDTO) {
-        return ResponseEntity.ok(albumService.atualizar(id, albumDTO));
+            @Parameter(description = "Dados atualizados do álbum") @Valid @RequestBody AlbumDTO albumDTO,
+            @Parameter(description = "ETag devolvido pelo GET ou pelo PUT (ex.: W/\"3-9f2c...\"), ou só a versão (ex.: \"3\")")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AlbumDTO atualizado = albumService.atualizar(id, albumDTO, ifMatch);
+        // Mesmo validador do GET, para que a próxima edição possa reenviá-lo em If-Match
+        return ResponseEntity.ok().eTag(albumService.etag(albumService.versaoDe(atualizado))).body(atualizado);
     }
 
     @PostMapping(value = "/{id}/imagens", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -111,6 +247,146 @@ public class AlbumController {
         return ResponseEntity.status(HttpStatus.CREATED).body(imagens);
     }
 
+    @GetMapping("/{id}/imagens/{imagemId}/conteudo")
+    @Operation(summary = "Conteúdo da imagem",
+            description = "Entrega a imagem pela API com URL estável, ETag forte, Range e Cache-Control longo, permitindo cache em CDN e navegador")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Imagem completa"),
+            @ApiResponse(responseCode = "206", description = "Trecho solicitado via Range"),
+            @ApiResponse(responseCode = "304", description = "Imagem não modificada (If-None-Match)"),
+            @ApiResponse(responseCode = "416", description = "Range fora do tamanho da imagem"),
+            @ApiResponse(responseCode = "404", description = "Imagem não encontrada"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<StreamingResponseBody> conteudoImagem(
+            @Parameter(description = "ID do álbum") @PathVariable Long id,
+            @Parameter(description = "ID da imagem") @PathVariable Long imagemId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        MetadadosObjeto objeto = albumImagemService.buscarConteudo(id, imagemId);
+        String etag = "\"" + objeto.etag() + "\"";
+        // O objeto de uma chave nunca é sobrescrito (chave = hash do conteúdo ou UUID).
+        // private: a rota exige token, então caches compartilhados (proxy/CDN) não podem guardar a resposta
+        CacheControl cacheControl = CacheControl.maxAge(conteudoCacheMaxAge).cachePrivate().immutable();
+
+        if (etagCorresponde(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        long total = objeto.tamanho();
+        List<HttpRange> ranges = parseRanges(range);
+        if (ranges.size() == 1 && total > 0) {
+            long inicio;
+            long fim;
+            try {
+                inicio = ranges.get(0).getRangeStart(total);
+                fim = ranges.get(0).getRangeEnd(total);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + total)
+                        .build();
+            }
+            long tamanho = fim - inicio + 1;
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                    .eTag(etag)
+                    .cacheControl(cacheControl)
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .header(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fim + "/" + total)
+                    .contentType(MediaType.parseMediaType(objeto.contentType()))
+                    .contentLength(tamanho)
+                    .body(copiarConteudo(objeto.objectKey(), inicio, tamanho));
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .lastModified(objeto.ultimaModificacao())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.parseMediaType(objeto.contentType()))
+                .contentLength(total)
+                .body(copiarConteudo(objeto.objectKey(), 0, total));
+    }
+
+    @DeleteMapping("/{id}/imagens/{imagemId}")
+    @Operation(summary = "Remover imagem do álbum",
+            description = "Remove a imagem; o arquivo só é apagado do storage quando nenhum outro álbum usa o mesmo conteúdo")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Imagem removida"),
+            @ApiResponse(responseCode = "404", description = "Imagem não encontrada"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<Void> removerImagem(
+            @Parameter(description = "ID do álbum") @PathVariable Long id,
+            @Parameter(description = "ID da imagem") @PathVariable Long imagemId) {
+        albumImagemService.removerImagem(id, imagemId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PutMapping(value = "/{id}/imagens/stream", consumes = "image/*")
+    @Operation(summary = "Upload de imagem via stream",
+            description = "Envia uma imagem no corpo da requisição (sem multipart), repassada ao MinIO em partes sem arquivo temporário")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Imagem enviada com sucesso"),
+            @ApiResponse(responseCode = "404", description = "Álbum não encontrado"),
+            @ApiResponse(responseCode = "400", description = "Arquivo inválido"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<AlbumImagemDTO> uploadImagemStream(
+            @Parameter(description = "ID do álbum") @PathVariable Long id,
+            @Parameter(description = "Nome original do arquivo") @RequestParam String nomeArquivo,
+            HttpServletRequest request) throws IOException {
+        AlbumImagemDTO imagem = albumImagemService.uploadImagemStream(id, nomeArquivo, request.getContentType(),
+                request.getInputStream(), request.getContentLengthLong());
+        return ResponseEntity.status(HttpStatus.CREATED).body(imagem);
+    }
+
+    @PostMapping("/{id}/imagens/uploads")
+    @Operation(summary = "Iniciar upload em partes", description = "Cria um upload retomável para imagens grandes")
+    public ResponseEntity<UploadEmPartesDTO> iniciarUploadEmPartes(
+            @Parameter(description = "ID do álbum") @PathVariable Long id) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(albumImagemService.iniciarUploadEmPartes(id));
+    }
+
+    @GetMapping("/{id}/imagens/uploads/{uploadId}")
+    @Operation(summary = "Consultar upload em partes", description = "Retorna as partes já recebidas, para retomar o upload")
+    public ResponseEntity<UploadEmPartesDTO> consultarUploadEmPartes(
+            @Parameter(description = "ID do álbum") @PathVariable Long id,
+            @Parameter(description = "ID do upload") @PathVariable String uploadId) {
+        return ResponseEntity.ok(albumImagemService.consultarUploadEmPartes(id, uploadId));
+    }
+
+    @PutMapping("/{id}/imagens/uploads/{uploadId}/partes/{numero}")
+    @Operation(summary = "Enviar parte do upload", description = "Envia uma parte (mínimo 5MB, exceto a última) no corpo da requisição")
+    public ResponseEntity<UploadEmPartesDTO> enviarParte(
+            @Parameter(description = "ID do álbum") @PathVariable Long id,
+            @Parameter(description = "ID do upload") @PathVariable String uploadId,
+            @Parameter(description = "Número da parte, a partir de 1") @PathVariable int numero,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(albumImagemService.enviarParte(id, uploadId, numero,
+                request.getInputStream(), request.getContentLengthLong()));
+    }
+
+    @PostMapping("/{id}/imagens/uploads/{uploadId}/concluir")
+    @Operation(summary = "Concluir upload em partes", description = "Junta as partes recebidas na imagem final do álbum. " +
+            "Recusa com 400 se faltar alguma parte entre 1 e a última ou se alguma parte, exceto a última, tiver menos de 5MB")
+    public ResponseEntity<AlbumImagemDTO> concluirUploadEmPartes(
+            @Parameter(description = "ID do álbum") @PathVariable Long id,
+            @Parameter(description = "ID do upload") @PathVariable String uploadId,
+            @Parameter(description = "Nome original do arquivo") @RequestParam String nomeArquivo,
+            @Parameter(description = "Tipo da imagem (ex.: image/png)") @RequestParam String contentType) {
+        AlbumImagemDTO imagem = albumImagemService.concluirUploadEmPartes(id, uploadId, nomeArquivo, contentType);
+        return ResponseEntity.status(HttpStatus.CREATED).body(imagem);
+    }
+
+    @DeleteMapping("/{id}/imagens/uploads/{uploadId}")
+    @Operation(summary = "Cancelar upload em partes", description = "Descarta as partes já enviadas")
+    public ResponseEntity<Void> cancelarUploadEmPartes(
+            @Parameter(description = "ID do álbum") @PathVariable Long id,
+            @Parameter(description = "ID do upload") @PathVariable String uploadId) {
+        albumImagemService.cancelarUploadEmPartes(id, uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/{id}/imagens")
     @Operation(summary = "Listar imagens do álbum", description = "Retorna todas as imagens de capa de um álbum com URLs pré-assinadas")
     @ApiResponses(value = {
@@ -122,4 +398,47 @@ public class AlbumController {
             @Parameter(description = "ID do álbum") @PathVariable Long id) {
         return ResponseEntity.ok(albumImagemService.listarImagensDoAlbum(id));
     }
+
+    /**
+     * O stream do MinIO só é aberto quando o corpo é escrito, e é copiado direto
+     * para a resposta sem carregar a imagem em memória.
+     */
+    private StreamingResponseBody copiarConteudo(String objectKey, long inicio, long tamanho) {
+        return saida -> {
+            if (tamanho == 0) {
+                return;
+            }
+            try (InputStream entrada = albumImagemService.abrirConteudo(objectKey, inicio, tamanho)) {
+                entrada.transferTo(saida);
+            }
+        };
+    }
+
+    private boolean etagCorresponde(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidato : ifNoneMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*") || valor.equals(etag) || valor.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Apenas um intervalo é atendido; Range inválido ou com vários intervalos é
+     * ignorado e a imagem completa é devolvida, como permite a RFC 9110.
+     */
+    private List<HttpRange> parseRanges(String range) {
+        if (range == null) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
 }
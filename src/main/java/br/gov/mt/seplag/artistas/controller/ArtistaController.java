@@ -1,7 +1,11 @@
 package br.gov.mt.seplag.artistas.controller;
 
 import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
+import br.gov.mt.seplag.artistas.dto.AlbumDTO;
 import br.gov.mt.seplag.artistas.dto.ArtistaDTO;
+import br.gov.mt.seplag.artistas.dto.CursorPageDTO;
+import br.gov.mt.seplag.artistas.repository.ArtistaRepository.VersaoArtista;
+import br.gov.mt.seplag.artistas.service.AlbumService;
 import br.gov.mt.seplag.artistas.service.ArtistaService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,9 +16,14 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.ZoneId;
 
 @RestController
 @RequestMapping("/api/v1/artistas")
@@ -24,6 +33,7 @@ import org.springframework.web.bind.annotation.*;
 public class ArtistaController {
 
     private final ArtistaService artistaService;
+    private final AlbumService albumService;
 
     @GetMapping
     @Operation(summary = "Listar todos os artistas", description = "Retorna uma lista paginada de artistas com opções de filtro e ordenação")
@@ -36,12 +46,15 @@ public class ArtistaController {
             @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
             @Parameter(description = "Direção da ordenação (asc ou desc)") @RequestParam(defaultValue = "asc") String sort,
             @Parameter(description = "Filtrar por nome do artista") @RequestParam(required = false) String nome,
-            @Parameter(description = "Filtrar por tipo (CANTOR ou BANDA)") @RequestParam(required = false) String tipo) {
+            @Parameter(description = "Filtrar por tipo (CANTOR ou BANDA)") @RequestParam(required = false) String tipo,
+            @Parameter(description = "Ordenar a busca por nome pela relevância em vez do nome") @RequestParam(defaultValue = "false") boolean relevancia) {
 
         Page<ArtistaDTO> artistas;
 
         if (nome != null && !nome.isEmpty()) {
-            artistas = artistaService.buscarPorNome(nome, page, size, sort);
+            artistas = relevancia
+                    ? artistaService.buscarPorNomeRelevancia(nome, page, size)
+                    : artistaService.buscarPorNome(nome, page, size, sort);
         } else if (tipo != null && !tipo.isEmpty()) {
             TipoArtista tipoArtista = TipoArtista.valueOf(tipo.toUpperCase());
             artistas = artistaService.buscarPorTipo(tipoArtista, page, size, sort);
@@ -52,16 +65,64 @@ public class ArtistaController {
         return ResponseEntity.ok(artistas);
     }
 
+    @GetMapping(params = "cursor")
+    @Operation(summary = "Listar artistas por cursor", description = "Paginação keyset ordenada por nome. " +
+            "Envie cursor vazio para a primeira página e o nextCursor retornado para as seguintes. " +
+            "Não calcula o total de registros")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Página de artistas retornada com sucesso"),
+            @ApiResponse(responseCode = "400", description = "Cursor inválido"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<CursorPageDTO<ArtistaDTO>> listarPorCursor(
+            @Parameter(description = "Cursor opaco retornado em nextCursor (vazio para a primeira página)") @RequestParam String cursor,
+            @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Direção da ordenação (asc ou desc)") @RequestParam(defaultValue = "asc") String sort) {
+        return ResponseEntity.ok(artistaService.listarPorCursor(cursor, size, sort));
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Buscar artista por ID", description = "Retorna um artista específico pelo seu ID")
+    @Operation(summary = "Buscar artista por ID",
+            description = "Retorna um artista específico pelo seu ID, com ETag fraco e Last-Modified para requisições condicionais")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Artista encontrado"),
+            @ApiResponse(responseCode = "304", description = "Artista não modificado (If-None-Match ou If-Modified-Since)"),
             @ApiResponse(responseCode = "404", description = "Artista não encontrado"),
             @ApiResponse(responseCode = "401", description = "Não autorizado")
     })
     public ResponseEntity<ArtistaDTO> buscarPorId(
-            @Parameter(description = "ID do artista") @PathVariable Long id) {
-        return ResponseEntity.ok(artistaService.buscarPorId(id));
+            @Parameter(description = "ID do artista") @PathVariable Long id,
+            WebRequest request) {
+        VersaoArtista versao = artistaService.buscarVersao(id);
+        long ultimaModificacao = versao.getAtualizadoEm().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (request.checkNotModified(artistaService.etag(versao.getVersao(), versao.getQuantidadeAlbuns()), ultimaModificacao)) {
+            return null;
+        }
+
+        ArtistaDTO artista = artistaService.buscarPorId(id);
+        if (!versao.getVersao().equals(artista.getVersao())
+                || !versao.getQuantidadeAlbuns().equals(artista.getQuantidadeAlbuns())) {
+            // Cache anterior à alteração (invalidação ainda não chegou)
+            artista = artistaService.recarregar(id);
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache().cachePrivate()).body(artista);
+    }
+
+    @GetMapping("/{id}/albuns")
+    @Operation(summary = "Listar álbuns do artista",
+            description = "Retorna os álbuns de um artista, paginados e ordenados por título. " +
+                    "O total vem da contagem mantida no artista (quantidadeAlbuns)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Álbuns do artista retornados com sucesso"),
+            @ApiResponse(responseCode = "404", description = "Artista não encontrado"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<Page<AlbumDTO>> listarAlbuns(
+            @Parameter(description = "ID do artista") @PathVariable Long id,
+            @Parameter(description = "Número da página (começando em 0)") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Tamanho da página") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Direção da ordenação por título (asc ou desc)") @RequestParam(defaultValue = "asc") String sort) {
+        return ResponseEntity.ok(albumService.listarPorArtista(id, page, size, sort));
     }
 
     @PostMapping
@@ -83,11 +144,16 @@ public class ArtistaController {
             @ApiResponse(responseCode = "200", description = "Artista atualizado com sucesso"),
             @ApiResponse(responseCode = "404", description = "Artista não encontrado"),
             @ApiResponse(responseCode = "400", description = "Dados inválidos"),
-            @ApiResponse(responseCode = "401", description = "Não autorizado")
+            @ApiResponse(responseCode = "401", description = "Não autorizado"),
+            @ApiResponse(responseCode = "409", description = "Versão do corpo desatualizada ou escrita concorrente"),
+            @ApiResponse(responseCode = "412", description = "If-Match diferente da versão atual")
     })
     public ResponseEntity<ArtistaDTO> atualizar(
             @Parameter(description = "ID do artista") @PathVariable Long id,
-            @Parameter(description = "Dados atualizados do artista") @Valid @RequestBody ArtistaDTO artistaDTO) {
-        return ResponseEntity.ok(artistaService.atualizar(id, artistaDTO));
+            @Parameter(description = "Dados atualizados do artista") @Valid @RequestBody ArtistaDTO artistaDTO,
+            @Parameter(description = "ETag devolvido pelo GET ou pelo PUT (ex.: W/\"3-12\"), ou só a versão (ex.: \"3\")")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ArtistaDTO atualizado = artistaService.atualizar(id, artistaDTO, ifMatch);
+        return ResponseEntity.ok().eTag(artistaService.etag(atualizado.getVersao(), atualizado.getQuantidadeAlbuns())).body(atualizado);
     }
 }
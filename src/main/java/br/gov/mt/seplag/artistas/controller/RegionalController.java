@@ -1,7 +1,9 @@
 package br.gov.mt.seplag.artistas.controller;
 
 import br.gov.mt.seplag.artistas.dto.RegionalDTO;
+import br.gov.mt.seplag.artistas.dto.SincronizacaoStatusDTO;
 import br.gov.mt.seplag.artistas.service.RegionalService;
+import br.gov.mt.seplag.artistas.service.RegionalSyncScheduler;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -22,6 +24,7 @@ import java.util.Map;
 public class RegionalController {
 
     private final RegionalService regionalService;
+    private final RegionalSyncScheduler regionalSyncScheduler;
 
     @GetMapping
     @Operation(summary = "Listar todas as regionais", description = "Retorna todas as regionais cadastradas no sistema")
@@ -48,19 +51,42 @@ public class RegionalController {
             description = "Sincroniza as regionais com a API externa. Regras: " +
                     "1) Novo no endpoint → inserir; " +
                     "2) Ausente no endpoint → inativar; " +
-                    "3) Atributo alterado → inativar antigo e criar novo registro")
+                    "3) Atributo alterado → inativar antigo e criar novo registro. " +
+                    "Se já houver uma sincronização em andamento nesta instância, aguarda a mesma execução; " +
+                    "com aguardar=false apenas dispara e retorna 202 com o status")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Sincronização realizada com sucesso"),
+            @ApiResponse(responseCode = "202", description = "Sincronização disparada em segundo plano"),
+            @ApiResponse(responseCode = "409", description = "Sincronização em andamento em outra instância"),
             @ApiResponse(responseCode = "500", description = "Erro ao sincronizar com API externa"),
             @ApiResponse(responseCode = "401", description = "Não autorizado")
     })
-    public ResponseEntity<Map<String, Object>> sincronizar() {
-        RegionalService.SyncResult result = regionalService.sincronizarComApiExterna();
+    public ResponseEntity<?> sincronizar(@RequestParam(defaultValue = "true") boolean aguardar) {
+        if (!aguardar) {
+            regionalSyncScheduler.disparar();
+            return ResponseEntity.accepted().body(regionalSyncScheduler.status());
+        }
+
+        RegionalService.SyncResult result = regionalSyncScheduler.sincronizar();
         return ResponseEntity.ok(Map.of(
-                "message", "Sincronização realizada com sucesso",
+                "message", result.semAlteracoes()
+                        ? "Sincronização ignorada: sem alterações na API externa"
+                        : "Sincronização realizada com sucesso",
                 "inseridos", result.inseridos(),
                 "atualizados", result.atualizados(),
-                "inativados", result.inativados()
+                "inativados", result.inativados(),
+                "semAlteracoes", result.semAlteracoes()
         ));
     }
+
+    @GetMapping("/sincronizar/status")
+    @Operation(summary = "Status da sincronização",
+            description = "Indica se há sincronização em andamento nesta instância e o resultado da última execução")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Status retornado com sucesso"),
+            @ApiResponse(responseCode = "401", description = "Não autorizado")
+    })
+    public ResponseEntity<SincronizacaoStatusDTO> statusSincronizacao() {
+        return ResponseEntity.ok(regionalSyncScheduler.status());
+    }
 }
@@ -19,7 +19,8 @@ import java.util.Set;
 public class Album {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "album_seq")
+    @SequenceGenerator(name = "album_seq", sequenceName = "album_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 200)
@@ -28,6 +29,13 @@ public class Album {
     @Column(name = "data_criacao")
     private LocalDateTime dataCriacao;
 
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             name = "artista_album",
@@ -46,5 +54,11 @@ public class Album {
         if (dataCriacao == null) {
             dataCriacao = LocalDateTime.now();
         }
+        atualizadoEm = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        atualizadoEm = LocalDateTime.now();
     }
 }
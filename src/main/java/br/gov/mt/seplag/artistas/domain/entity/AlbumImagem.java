@@ -12,8 +12,10 @@ import lombok.*;
 @Builder
 public class AlbumImagem {
 
+    // Sequence em vez de IDENTITY: com IDENTITY o Hibernate não consegue agrupar INSERTs em lote
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "album_imagem_seq")
+    @SequenceGenerator(name = "album_imagem_seq", sequenceName = "album_imagem_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -25,4 +27,10 @@ public class AlbumImagem {
 
     @Column(name = "object_key", length = 500)
     private String objectKey;
+
+    @Column(name = "hash_conteudo", length = 64)
+    private String hashConteudo;
+
+    @Column(name = "miniaturas_geradas", nullable = false)
+    private boolean miniaturasGeradas;
 }
@@ -2,7 +2,9 @@ package br.gov.mt.seplag.artistas.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -16,7 +18,8 @@ import java.util.Set;
 public class Artista {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "artista_seq")
+    @SequenceGenerator(name = "artista_seq", sequenceName = "artista_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, length = 200)
@@ -26,7 +29,30 @@ public class Artista {
     @Column(nullable = false)
     private TipoArtista tipo;
 
+    @Column(name = "atualizado_em", nullable = false)
+    private LocalDateTime atualizadoEm;
+
+    @Version
+    @Column(nullable = false)
+    private Long versao;
+
+    // Mantida por trigger em artista_album (V13, V14), que só atualiza quantidade_albuns e atualizado_em; versao não muda
+    @Column(name = "quantidade_albuns", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private Integer quantidadeAlbuns = 0;
+
     @ManyToMany(mappedBy = "artistas", fetch = FetchType.LAZY)
     @Builder.Default
     private Set<Album> albuns = new HashSet<>();
+
+    @PrePersist
+    protected void onCreate() {
+        atualizadoEm = LocalDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        atualizadoEm = LocalDateTime.now();
+    }
 }
@@ -30,4 +30,6 @@ public class AlbumDTO {
     private List<ArtistaDTO> artistas;
 
     private List<AlbumImagemDTO> imagens;
+
+    private Long versao;
 }
@@ -0,0 +1,29 @@
+package br.gov.mt.seplag.artistas.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Linha da exportação do catálogo. No NDJSON, titulo e artistas seguem o formato
+ * aceito pela importação.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlbumExportacaoDTO {
+
+    private Long id;
+
+    private String titulo;
+
+    private LocalDateTime dataCriacao;
+
+    private List<ArtistaDTO> artistas;
+
+    // Chaves dos objetos no MinIO; URLs pré-assinadas não fazem sentido num arquivo exportado
+    private List<String> imagens;
+}
@@ -2,6 +2,8 @@ package br.gov.mt.seplag.artistas.dto;
 
 import lombok.*;
 
+import java.util.Map;
+
 @Getter
 @Setter
 @NoArgsConstructor
@@ -13,4 +15,5 @@ public class AlbumImagemDTO {
     private Long albumId;
     private String nomeArquivo;
     private String url;
+    private Map<Integer, String> miniaturas;
 }
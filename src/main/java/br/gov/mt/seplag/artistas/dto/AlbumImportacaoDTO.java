@@ -0,0 +1,20 @@
+package br.gov.mt.seplag.artistas.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Linha da importação em massa: um álbum com seus artistas, identificados pelo nome.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AlbumImportacaoDTO {
+
+    private String titulo;
+
+    private List<ArtistaDTO> artistas;
+}
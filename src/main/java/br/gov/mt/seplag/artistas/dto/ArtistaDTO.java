@@ -21,4 +21,8 @@ public class ArtistaDTO {
 
     @NotNull(message = "Tipo é obrigatório (CANTOR ou BANDA)")
     private TipoArtista tipo;
+
+    private Long versao;
+
+    private Integer quantidadeAlbuns;
 }
@@ -0,0 +1,35 @@
+package br.gov.mt.seplag.artistas.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportacaoResultadoDTO {
+
+    private long linhasProcessadas;
+
+    private long albunsCriados;
+
+    private long artistasCriados;
+
+    private long linhasComErro;
+
+    // Limitada às primeiras ocorrências; linhasComErro traz o total
+    private List<ErroImportacaoDTO> erros;
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErroImportacaoDTO {
+
+        private long linha;
+
+        private String mensagem;
+    }
+}
@@ -0,0 +1,22 @@
+package br.gov.mt.seplag.artistas.dto;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SincronizacaoStatusDTO {
+
+    private boolean emAndamento;
+    private LocalDateTime iniciadaEm;
+    private LocalDateTime concluidaEm;
+    private Integer inseridos;
+    private Integer atualizados;
+    private Integer inativados;
+    private Boolean semAlteracoes;
+    private String erro;
+}
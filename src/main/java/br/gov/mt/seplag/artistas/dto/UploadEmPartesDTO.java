@@ -0,0 +1,18 @@
+package br.gov.mt.seplag.artistas.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadEmPartesDTO {
+
+    private String uploadId;
+    private Long albumId;
+    private List<Integer> partesRecebidas;
+    private long tamanhoMinimoParte;
+}
@@ -0,0 +1,16 @@
+package br.gov.mt.seplag.artistas.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(String message) {
+        super(message);
+    }
+
+    public InvalidImportException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,13 @@
+package br.gov.mt.seplag.artistas.exception;
+
+/**
+ * Payload da API externa que não pôde ser lido (JSON malformado ou fora do formato
+ * esperado). Repetir a chamada não resolve: não entra no retry nem conta como falha
+ * no circuit breaker.
+ */
+public class PayloadInvalidoException extends RuntimeException {
+
+    public PayloadInvalidoException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,16 @@
+package br.gov.mt.seplag.artistas.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class SyncInProgressException extends RuntimeException {
+
+    public SyncInProgressException(String message) {
+        super(message);
+    }
+
+    public SyncInProgressException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,14 +2,43 @@ package br.gov.mt.seplag.artistas.repository;
 
 import br.gov.mt.seplag.artistas.domain.entity.AlbumImagem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface AlbumImagemRepository extends JpaRepository<AlbumImagem, Long> {
 
     List<AlbumImagem> findByAlbumId(Long albumId);
 
+    List<AlbumImagem> findByAlbumIdIn(Collection<Long> albumIds);
+
+    Optional<AlbumImagem> findByIdAndAlbumId(Long id, Long albumId);
+
+    long countByHashConteudo(String hashConteudo);
+
+    /**
+     * Lock por conteúdo até o fim da transação: serializa quem grava uma referência
+     * a imagens/{sha} com quem apaga esse objeto ao remover a última referência.
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext(CONCAT('album-imagem:', :hash)))", nativeQuery = true)
+    Integer lockConteudo(@Param("hash") String hashConteudo);
+
+    boolean existsByHashConteudoAndMiniaturasGeradasTrue(String hashConteudo);
+
     void deleteByAlbumId(Long albumId);
+
+    @Query("SELECT DISTINCT i.album.id FROM AlbumImagem i WHERE i.objectKey = :objectKey")
+    List<Long> findAlbumIdsByObjectKey(@Param("objectKey") String objectKey);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AlbumImagem i SET i.miniaturasGeradas = true WHERE i.objectKey = :objectKey")
+    void marcarMiniaturasGeradas(@Param("objectKey") String objectKey);
 }
@@ -9,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -17,13 +19,72 @@ public interface AlbumRepository extends JpaRepository<Album, Long> {
     @Query("SELECT DISTINCT a FROM Album a LEFT JOIN FETCH a.artistas WHERE a.id = :id")
     Optional<Album> findByIdWithArtistas(@Param("id") Long id);
 
-    @Query("SELECT DISTINCT a FROM Album a JOIN a.artistas art WHERE art.tipo = :tipo")
-    Page<Album> findByTipoArtista(@Param("tipo") TipoArtista tipo, Pageable pageable);
+    @Query("SELECT DISTINCT a FROM Album a LEFT JOIN FETCH a.artistas WHERE a.id IN :ids")
+    List<Album> findAllWithArtistasByIdIn(@Param("ids") Collection<Long> ids);
 
-    @Query("SELECT DISTINCT a FROM Album a JOIN a.artistas art WHERE LOWER(art.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
-    Page<Album> findByArtistaNome(@Param("nome") String nomeArtista, Pageable pageable);
+    @Query(value = "SELECT a.id FROM Album a",
+            countQuery = "SELECT COUNT(a) FROM Album a")
+    Page<Long> findPageIds(Pageable pageable);
 
-    Page<Album> findByTituloContainingIgnoreCase(String titulo, Pageable pageable);
+    @Query(value = "SELECT a.id FROM Album a WHERE a.id IN " +
+            "(SELECT al.id FROM Artista art JOIN art.albuns al WHERE art.tipo = :tipo)",
+            countQuery = "SELECT COUNT(a) FROM Album a WHERE a.id IN " +
+                    "(SELECT al.id FROM Artista art JOIN art.albuns al WHERE art.tipo = :tipo)")
+    Page<Long> findPageIdsByTipoArtista(@Param("tipo") TipoArtista tipo, Pageable pageable);
+
+    @Query(value = "SELECT a.id FROM Album a WHERE a.id IN " +
+            "(SELECT al.id FROM Artista art JOIN art.albuns al WHERE LOWER(art.nome) LIKE LOWER(CONCAT('%', :nome, '%')))",
+            countQuery = "SELECT COUNT(a) FROM Album a WHERE a.id IN " +
+                    "(SELECT al.id FROM Artista art JOIN art.albuns al WHERE LOWER(art.nome) LIKE LOWER(CONCAT('%', :nome, '%')))")
+    Page<Long> findPageIdsByArtistaNome(@Param("nome") String nomeArtista, Pageable pageable);
+
+    // LOWER(titulo) LIKE é atendido pelo índice trigram idx_album_titulo_trgm
+    @Query(value = "SELECT a.id FROM Album a WHERE LOWER(a.titulo) LIKE LOWER(CONCAT('%', :titulo, '%'))",
+            countQuery = "SELECT COUNT(a) FROM Album a WHERE LOWER(a.titulo) LIKE LOWER(CONCAT('%', :titulo, '%'))")
+    Page<Long> findPageIdsByTitulo(@Param("titulo") String titulo, Pageable pageable);
+
+    @Query(value = "SELECT a.id FROM album a " +
+            "WHERE LOWER(a.titulo) LIKE '%' || LOWER(:titulo) || '%' OR LOWER(a.titulo) % LOWER(:titulo) " +
+            "ORDER BY similarity(LOWER(a.titulo), LOWER(:titulo)) DESC, a.titulo, a.id",
+            countQuery = "SELECT COUNT(*) FROM album a " +
+                    "WHERE LOWER(a.titulo) LIKE '%' || LOWER(:titulo) || '%' OR LOWER(a.titulo) % LOWER(:titulo)",
+            nativeQuery = true)
+    Page<Long> findPageIdsByTituloRelevancia(@Param("titulo") String titulo, Pageable pageable);
+
+    /**
+     * Versão do detalhe do álbum sem carregar as entidades: versão do álbum, hash do
+     * nome e tipo de cada artista e, por imagem, se as miniaturas já foram geradas.
+     * Formato igual ao de AlbumService.versaoDe(AlbumDTO).
+     */
+    @Query(value = "SELECT CONCAT(a.versao, '|', " +
+            "COALESCE((SELECT string_agg(CONCAT(ar.id, ':', md5(CONCAT(ar.nome, ':', ar.tipo))), ',' ORDER BY ar.id) " +
+            "FROM artista_album aa JOIN artista ar ON ar.id = aa.artista_id WHERE aa.album_id = a.id), ''), '|', " +
+            "COALESCE((SELECT string_agg(CONCAT(i.id, ':', CASE WHEN i.miniaturas_geradas THEN 1 ELSE 0 END), ',' ORDER BY i.id) " +
+            "FROM album_imagem i WHERE i.album_id = a.id), '')) " +
+            "FROM album a WHERE a.id = :id",
+            nativeQuery = true)
+    Optional<String> findVersaoById(@Param("id") Long id);
+
+    @Query("SELECT a.id FROM Album a JOIN a.artistas ar WHERE ar.id = :artistaId")
+    List<Long> findIdsByArtistaId(@Param("artistaId") Long artistaId);
+
+    // Parte da PK (artista_id, album_id); o total da página vem de artista.quantidade_albuns, sem COUNT(*)
+    @Query("SELECT a.id FROM Album a JOIN a.artistas ar WHERE ar.id = :artistaId")
+    List<Long> findIdsByArtistaId(@Param("artistaId") Long artistaId, Pageable pageable);
+
+    @Query("SELECT a.id FROM Album a ORDER BY a.titulo ASC, a.id ASC")
+    List<Long> findIdsKeysetAsc(Pageable limite);
+
+    @Query("SELECT a.id FROM Album a WHERE a.titulo >= :titulo AND (a.titulo > :titulo OR a.id > :id) " +
+            "ORDER BY a.titulo ASC, a.id ASC")
+    List<Long> findIdsKeysetAscAfter(@Param("titulo") String titulo, @Param("id") Long id, Pageable limite);
+
+    @Query("SELECT a.id FROM Album a ORDER BY a.titulo DESC, a.id DESC")
+    List<Long> findIdsKeysetDesc(Pageable limite);
+
+    @Query("SELECT a.id FROM Album a WHERE a.titulo <= :titulo AND (a.titulo < :titulo OR a.id < :id) " +
+            "ORDER BY a.titulo DESC, a.id DESC")
+    List<Long> findIdsKeysetDescAfter(@Param("titulo") String titulo, @Param("id") Long id, Pageable limite);
 
     boolean existsByTituloIgnoreCase(String titulo);
 }
\ No newline at end of file
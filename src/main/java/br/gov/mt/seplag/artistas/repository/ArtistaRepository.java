@@ -9,21 +9,61 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ArtistaRepository extends JpaRepository<Artista, Long> {
 
-    List<Artista> findByNomeContainingIgnoreCase(String nome);
+    List<Artista> findByTipo(TipoArtista tipo);
 
-    Page<Artista> findByNomeContainingIgnoreCase(String nome, Pageable pageable);
+    // Só as colunas do ETag/Last-Modified, para responder 304 sem carregar o artista
+    @Query("SELECT a.versao AS versao, a.quantidadeAlbuns AS quantidadeAlbuns, a.atualizadoEm AS atualizadoEm " +
+            "FROM Artista a WHERE a.id = :id")
+    Optional<VersaoArtista> findVersaoById(@Param("id") Long id);
 
-    List<Artista> findByTipo(TipoArtista tipo);
+    @Query("SELECT a.quantidadeAlbuns FROM Artista a WHERE a.id = :id")
+    Optional<Integer> findQuantidadeAlbunsById(@Param("id") Long id);
 
     Page<Artista> findByTipo(TipoArtista tipo, Pageable pageable);
 
     @Query("SELECT a FROM Artista a WHERE LOWER(a.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
     List<Artista> buscarPorNome(@Param("nome") String nome);
 
+    // LOWER(nome) LIKE é atendido pelo índice trigram idx_artista_nome_trgm
+    @Query("SELECT a FROM Artista a WHERE LOWER(a.nome) LIKE LOWER(CONCAT('%', :nome, '%'))")
+    Page<Artista> buscarPorNome(@Param("nome") String nome, Pageable pageable);
+
+    @Query(value = "SELECT * FROM artista a " +
+            "WHERE LOWER(a.nome) LIKE '%' || LOWER(:nome) || '%' OR LOWER(a.nome) % LOWER(:nome) " +
+            "ORDER BY similarity(LOWER(a.nome), LOWER(:nome)) DESC, a.nome, a.id",
+            countQuery = "SELECT COUNT(*) FROM artista a " +
+                    "WHERE LOWER(a.nome) LIKE '%' || LOWER(:nome) || '%' OR LOWER(a.nome) % LOWER(:nome)",
+            nativeQuery = true)
+    Page<Artista> buscarPorNomeRelevancia(@Param("nome") String nome, Pageable pageable);
+
+    @Query("SELECT a FROM Artista a ORDER BY a.nome ASC, a.id ASC")
+    List<Artista> findKeysetAsc(Pageable limite);
+
+    @Query("SELECT a FROM Artista a WHERE a.nome >= :nome AND (a.nome > :nome OR a.id > :id) " +
+            "ORDER BY a.nome ASC, a.id ASC")
+    List<Artista> findKeysetAscAfter(@Param("nome") String nome, @Param("id") Long id, Pageable limite);
+
+    @Query("SELECT a FROM Artista a ORDER BY a.nome DESC, a.id DESC")
+    List<Artista> findKeysetDesc(Pageable limite);
+
+    @Query("SELECT a FROM Artista a WHERE a.nome <= :nome AND (a.nome < :nome OR a.id < :id) " +
+            "ORDER BY a.nome DESC, a.id DESC")
+    List<Artista> findKeysetDescAfter(@Param("nome") String nome, @Param("id") Long id, Pageable limite);
+
     boolean existsByNomeIgnoreCase(String nome);
+
+    interface VersaoArtista {
+        Long getVersao();
+
+        Integer getQuantidadeAlbuns();
+
+        LocalDateTime getAtualizadoEm();
+    }
 }
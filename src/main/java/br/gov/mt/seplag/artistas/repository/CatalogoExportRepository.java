@@ -0,0 +1,110 @@
+package br.gov.mt.seplag.artistas.repository;
+
+import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
+import br.gov.mt.seplag.artistas.dto.AlbumExportacaoDTO;
+import br.gov.mt.seplag.artistas.dto.ArtistaDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Leitura do catálogo inteiro para a exportação (SQL do PostgreSQL).
+ * <p>
+ * Artistas e chaves das imagens são agregados em arrays numa única consulta, sem
+ * N+1, e as linhas chegam por um cursor do servidor: o driver só usa cursor com
+ * fetchSize definido e autocommit desligado, então o stream precisa ser consumido
+ * dentro de uma transação.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogoExportRepository {
+
+    // Linhas trazidas do servidor por vez; é o que fica em memória, independente do tamanho do catálogo
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SQL_ALBUNS = """
+            SELECT a.id, a.titulo, a.data_criacao,
+                   ar.ids AS artista_ids, ar.nomes AS artista_nomes, ar.tipos AS artista_tipos, ar.versoes AS artista_versoes,
+                   img.chaves AS imagens
+            FROM album a
+            LEFT JOIN (
+                SELECT aa.album_id,
+                       array_agg(r.id ORDER BY r.id) AS ids,
+                       array_agg(r.nome ORDER BY r.id) AS nomes,
+                       array_agg(r.tipo ORDER BY r.id) AS tipos,
+                       array_agg(r.versao ORDER BY r.id) AS versoes
+                FROM artista_album aa
+                JOIN artista r ON r.id = aa.artista_id
+                GROUP BY aa.album_id
+            ) ar ON ar.album_id = a.id
+            LEFT JOIN (
+                SELECT i.album_id, array_agg(i.object_key ORDER BY i.id) AS chaves
+                FROM album_imagem i
+                GROUP BY i.album_id
+            ) img ON img.album_id = a.id
+            ORDER BY a.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Todos os álbuns, ordenados por id, com artistas e chaves das imagens.
+     * O stream precisa ser fechado (libera o cursor e o statement).
+     */
+    public Stream<AlbumExportacaoDTO> streamAlbuns() {
+        return jdbcTemplate.queryForStream(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SQL_ALBUNS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(FETCH_SIZE);
+            return ps;
+        }, (rs, rowNum) -> toAlbum(rs));
+    }
+
+    private AlbumExportacaoDTO toAlbum(ResultSet rs) throws SQLException {
+        Long[] ids = array(rs.getArray("artista_ids"), Long[].class);
+        String[] nomes = array(rs.getArray("artista_nomes"), String[].class);
+        String[] tipos = array(rs.getArray("artista_tipos"), String[].class);
+        Long[] versoes = array(rs.getArray("artista_versoes"), Long[].class);
+
+        List<ArtistaDTO> artistas = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            artistas.add(ArtistaDTO.builder()
+                    .id(ids[i])
+                    .nome(nomes[i])
+                    .tipo(TipoArtista.valueOf(tipos[i]))
+                    .versao(versoes[i])
+                    .build());
+        }
+
+        Timestamp dataCriacao = rs.getTimestamp("data_criacao");
+        return AlbumExportacaoDTO.builder()
+                .id(rs.getLong("id"))
+                .titulo(rs.getString("titulo"))
+                .dataCriacao(dataCriacao != null ? dataCriacao.toLocalDateTime() : null)
+                .artistas(artistas)
+                .imagens(Arrays.asList(array(rs.getArray("imagens"), String[].class)))
+                .build();
+    }
+
+    // array_agg sem linhas resulta em NULL no LEFT JOIN
+    private static <T> T[] array(Array array, Class<T[]> tipo) throws SQLException {
+        if (array == null) {
+            return tipo.cast(java.lang.reflect.Array.newInstance(tipo.getComponentType(), 0));
+        }
+        try {
+            return tipo.cast(array.getArray());
+        } finally {
+            array.free();
+        }
+    }
+}
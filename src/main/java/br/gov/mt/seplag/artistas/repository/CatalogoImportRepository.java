@@ -0,0 +1,149 @@
+package br.gov.mt.seplag.artistas.repository;
+
+import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escrita em massa do catálogo (SQL do PostgreSQL) para a importação.
+ * <p>
+ * Os IDs são reservados em blocos nas mesmas sequences usadas pelo Hibernate, com a
+ * mesma convenção do otimizador pooled, e as linhas entram com INSERTs
+ * multi-valores, sem passar pelo contexto de persistência.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogoImportRepository {
+
+    // Igual ao allocationSize de Album e Artista e ao INCREMENT BY das sequences (V12)
+    private static final int ALOCACAO_SEQUENCE = 50;
+
+    // Linhas por INSERT multi-valores (até 3 parâmetros por linha, abaixo do limite de 32767 do driver)
+    private static final int LINHAS_POR_INSERT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Serializa as importações concorrentes até o fim da transação, para que duas
+     * importações não criem o mesmo artista novo.
+     */
+    public void lockImportacao() {
+        jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtext('catalogo-import'))", Object.class);
+    }
+
+    public List<Long> reservarIdsArtista(int quantidade) {
+        return reservarIds("artista_id_seq", quantidade);
+    }
+
+    public List<Long> reservarIdsAlbum(int quantidade) {
+        return reservarIds("album_id_seq", quantidade);
+    }
+
+    /**
+     * Cada nextval reserva o bloco (valor - 49 .. valor), como o otimizador pooled do
+     * Hibernate: os IDs não colidem com os gerados pelas entidades.
+     */
+    private List<Long> reservarIds(String sequence, int quantidade) {
+        if (quantidade == 0) {
+            return List.of();
+        }
+        int blocos = (quantidade + ALOCACAO_SEQUENCE - 1) / ALOCACAO_SEQUENCE;
+        List<Long> limites = jdbcTemplate.queryForList(
+                "SELECT nextval('" + sequence + "') FROM generate_series(1, ?)", Long.class, blocos);
+
+        List<Long> ids = new ArrayList<>(quantidade);
+        for (Long limite : limites) {
+            for (long id = limite - ALOCACAO_SEQUENCE + 1; id <= limite && ids.size() < quantidade; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Artistas existentes pelo nome normalizado (minúsculas); havendo nomes
+     * repetidos no cadastro, fica o de menor id.
+     */
+    public Map<String, Long> buscarArtistasPorNome(Collection<String> nomes) {
+        Map<String, Long> encontrados = new HashMap<>();
+        List<String> lista = new ArrayList<>(nomes);
+        for (int inicio = 0; inicio < lista.size(); inicio += LINHAS_POR_INSERT) {
+            List<String> lote = lista.subList(inicio, Math.min(inicio + LINHAS_POR_INSERT, lista.size()));
+            String parametros = String.join(",", Collections.nCopies(lote.size(), "?"));
+            jdbcTemplate.query("SELECT LOWER(nome) AS chave, MIN(id) AS id FROM artista " +
+                            "WHERE LOWER(nome) IN (" + parametros + ") GROUP BY LOWER(nome)",
+                    rs -> {
+                        encontrados.put(rs.getString("chave"), rs.getLong("id"));
+                    },
+                    lote.toArray());
+        }
+        return encontrados;
+    }
+
+    public void inserirArtistas(List<NovoArtista> artistas) {
+        for (int inicio = 0; inicio < artistas.size(); inicio += LINHAS_POR_INSERT) {
+            List<NovoArtista> lote = artistas.subList(inicio, Math.min(inicio + LINHAS_POR_INSERT, artistas.size()));
+
+            String valores = String.join(",", Collections.nCopies(lote.size(), "(?, ?, ?, 0, CURRENT_TIMESTAMP)"));
+            List<Object> parametros = new ArrayList<>(lote.size() * 3);
+            for (NovoArtista artista : lote) {
+                parametros.add(artista.id());
+                parametros.add(artista.nome());
+                parametros.add(artista.tipo().name());
+            }
+
+            jdbcTemplate.update("INSERT INTO artista (id, nome, tipo, versao, atualizado_em) VALUES " + valores,
+                    parametros.toArray());
+        }
+    }
+
+    public void inserirAlbuns(List<NovoAlbum> albuns) {
+        for (int inicio = 0; inicio < albuns.size(); inicio += LINHAS_POR_INSERT) {
+            List<NovoAlbum> lote = albuns.subList(inicio, Math.min(inicio + LINHAS_POR_INSERT, albuns.size()));
+
+            String valores = String.join(",", Collections.nCopies(lote.size(),
+                    "(?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0)"));
+            List<Object> parametros = new ArrayList<>(lote.size() * 2);
+            for (NovoAlbum album : lote) {
+                parametros.add(album.id());
+                parametros.add(album.titulo());
+            }
+
+            jdbcTemplate.update("INSERT INTO album (id, titulo, data_criacao, atualizado_em, versao) VALUES " + valores,
+                    parametros.toArray());
+        }
+    }
+
+    /**
+     * Vínculos artista-álbum; o mesmo artista repetido numa linha vira um vínculo só.
+     */
+    public void inserirVinculos(List<Vinculo> vinculos) {
+        for (int inicio = 0; inicio < vinculos.size(); inicio += LINHAS_POR_INSERT) {
+            List<Vinculo> lote = vinculos.subList(inicio, Math.min(inicio + LINHAS_POR_INSERT, vinculos.size()));
+
+            String valores = String.join(",", Collections.nCopies(lote.size(), "(?, ?)"));
+            List<Object> parametros = new ArrayList<>(lote.size() * 2);
+            for (Vinculo vinculo : lote) {
+                parametros.add(vinculo.artistaId());
+                parametros.add(vinculo.albumId());
+            }
+
+            jdbcTemplate.update("INSERT INTO artista_album (artista_id, album_id) VALUES " + valores
+                    + " ON CONFLICT DO NOTHING", parametros.toArray());
+        }
+    }
+
+    public record NovoArtista(Long id, String nome, TipoArtista tipo) {}
+
+    public record NovoAlbum(Long id, String titulo) {}
+
+    public record Vinculo(Long artistaId, Long albumId) {}
+}
@@ -0,0 +1,143 @@
+package br.gov.mt.seplag.artistas.repository;
+
+import br.gov.mt.seplag.artistas.dto.RegionalExternaDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Operações em conjunto da sincronização de regionais (SQL do PostgreSQL).
+ * <p>
+ * O payload da API externa é carregado numa tabela temporária e as regras são
+ * aplicadas com poucos comandos UPDATE ... FROM / INSERT ... SELECT, em vez de um
+ * save por registro. Todos os métodos precisam rodar na mesma transação: a tabela
+ * de staging é descartada no commit.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RegionalSyncRepository {
+
+    // Linhas por INSERT multi-valores (2 parâmetros por linha, bem abaixo do limite de 32767 do driver)
+    private static final int LINHAS_POR_INSERT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Tenta obter o advisory lock da sincronização, liberado no fim da transação.
+     * Funciona como eleição de líder entre réplicas: só quem obtém o lock sincroniza.
+     */
+    public boolean tentarLockSincronizacao() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('regional-sync'))", Boolean.class));
+    }
+
+    /**
+     * Impressão do último payload aplicado para a fonte (URL da API externa).
+     */
+    public Optional<Fingerprint> buscarFingerprint(String fonte) {
+        return jdbcTemplate.query(
+                "SELECT etag, last_modified, hash_payload FROM regional_sincronizacao WHERE fonte = ?",
+                (rs, rowNum) -> new Fingerprint(rs.getString("etag"), rs.getString("last_modified"), rs.getString("hash_payload")),
+                fonte
+        ).stream().findFirst();
+    }
+
+    public void salvarFingerprint(String fonte, Fingerprint fingerprint) {
+        jdbcTemplate.update("""
+                INSERT INTO regional_sincronizacao (fonte, etag, last_modified, hash_payload, sincronizado_em)
+                VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)
+                ON CONFLICT (fonte) DO UPDATE
+                SET etag = EXCLUDED.etag,
+                    last_modified = EXCLUDED.last_modified,
+                    hash_payload = EXCLUDED.hash_payload,
+                    sincronizado_em = EXCLUDED.sincronizado_em
+                """, fonte, fingerprint.etag(), fingerprint.lastModified(), fingerprint.hashPayload());
+    }
+
+    /**
+     * Cria o staging, ou o esvazia se já existir na transação. hash_conteudo usa a mesma expressão gravada em regional
+     * (V10), então comparar hashes equivale a comparar os atributos.
+     */
+    public void criarStaging() {
+        jdbcTemplate.execute("""
+                CREATE TEMP TABLE IF NOT EXISTS regional_staging (
+                    id_externo INTEGER PRIMARY KEY,
+                    nome VARCHAR(200),
+                    hash_conteudo VARCHAR(32) GENERATED ALWAYS AS (md5(COALESCE(nome, ''))) STORED
+                ) ON COMMIT DROP
+                """);
+        jdbcTemplate.execute("TRUNCATE regional_staging");
+    }
+
+    /**
+     * Carrega as regionais externas no staging com INSERTs multi-valores.
+     * IDs repetidos no payload ficam com a primeira ocorrência.
+     */
+    public void inserirStaging(List<RegionalExternaDTO> regionais) {
+        for (int inicio = 0; inicio < regionais.size(); inicio += LINHAS_POR_INSERT) {
+            List<RegionalExternaDTO> lote = regionais.subList(inicio, Math.min(inicio + LINHAS_POR_INSERT, regionais.size()));
+
+            String valores = String.join(",", Collections.nCopies(lote.size(), "(?, ?)"));
+            List<Object> parametros = new ArrayList<>(lote.size() * 2);
+            for (RegionalExternaDTO regional : lote) {
+                parametros.add(regional.getId());
+                parametros.add(regional.getNome());
+            }
+
+            jdbcTemplate.update("INSERT INTO regional_staging (id_externo, nome) VALUES " + valores
+                    + " ON CONFLICT (id_externo) DO NOTHING", parametros.toArray());
+        }
+    }
+
+    /**
+     * Regra 3 (primeira metade): inativa as regionais ativas cujo hash de conteúdo mudou.
+     * A nova versão é criada por {@link #inserirNovas()}.
+     * @return quantidade de regionais alteradas
+     */
+    public int inativarAlteradas() {
+        return jdbcTemplate.update("""
+                UPDATE regional r
+                SET ativo = FALSE
+                FROM regional_staging s
+                WHERE r.id_externo = s.id_externo
+                  AND r.ativo = TRUE
+                  AND r.hash_conteudo IS DISTINCT FROM s.hash_conteudo
+                """);
+    }
+
+    /**
+     * Regra 2: inativa as regionais ativas ausentes no payload.
+     * @return quantidade de regionais inativadas
+     */
+    public int inativarAusentes() {
+        return jdbcTemplate.update("""
+                UPDATE regional r
+                SET ativo = FALSE
+                WHERE r.ativo = TRUE
+                  AND NOT EXISTS (SELECT 1 FROM regional_staging s WHERE s.id_externo = r.id_externo)
+                """);
+    }
+
+    /**
+     * Regras 1 e 3: insere um registro ativo para cada regional do payload que não
+     * tem versão ativa (novas e as recém-inativadas por alteração).
+     * @return quantidade de registros inseridos
+     */
+    public int inserirNovas() {
+        return jdbcTemplate.update("""
+                INSERT INTO regional (id_externo, nome, ativo, hash_conteudo)
+                SELECT s.id_externo, s.nome, TRUE, s.hash_conteudo
+                FROM regional_staging s
+                WHERE NOT EXISTS (
+                    SELECT 1 FROM regional r WHERE r.id_externo = s.id_externo AND r.ativo = TRUE
+                )
+                """);
+    }
+
+    public record Fingerprint(String etag, String lastModified, String hashPayload) {}
+}
@@ -1,11 +1,13 @@
 package br.gov.mt.seplag.artistas.security;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -16,6 +18,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -25,6 +28,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
 
+    @Value("${jwt.stateless-auth.enabled:true}")
+    private boolean statelessAuth;
+
+    @Value("${jwt.stateless-auth.revocation-check:true}")
+    private boolean revocationCheck;
+
     @Override
     protected void doFilterInternal(
             @NonNull HttpServletRequest request,
@@ -33,7 +42,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         final String authHeader = request.getHeader("Authorization");
         final String jwt;
-        final String username;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -42,12 +50,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            username = jwtService.extractUsername(jwt);
+            // Uma única verificação de assinatura por requisição (ou nenhuma, se o token já estiver em cache)
+            Optional<Claims> claims = jwtService.parseToken(jwt);
+            String username = claims.map(Claims::getSubject).orElse(null);
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            if (username != null && !jwtService.isRefreshToken(claims.get())
+                    && SecurityContextHolder.getContext().getAuthentication() == null) {
+                UserDetails userDetails = resolverUsuario(claims.get());
 
-                if (jwtService.isTokenValid(jwt, userDetails) && !jwtService.isRefreshToken(jwt)) {
+                if (userDetails != null && userDetails.isEnabled()) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails,
                             null,
@@ -63,4 +74,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * No modo sem estado, usuário e authorities vêm das claims do token e o banco
+     * só é consultado para checar revogação, via cache de curta duração do
+     * UserDetailsService. Tokens sem essas claims seguem o fluxo com consulta.
+     */
+    private UserDetails resolverUsuario(Claims claims) {
+        String username = claims.getSubject();
+
+        if (statelessAuth && jwtService.hasUserClaims(claims)) {
+            if (revocationCheck && !this.userDetailsService.loadUserByUsername(username).isEnabled()) {
+                log.warn("Token de usuário desabilitado recusado: {}", username);
+                return null;
+            }
+            return jwtService.toUserDetails(claims);
+        }
+
+        UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        return username.equals(userDetails.getUsername()) ? userDetails : null;
+    }
 }
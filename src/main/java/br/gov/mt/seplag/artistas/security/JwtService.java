@@ -1,23 +1,35 @@
 package br.gov.mt.seplag.artistas.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Service
 @Slf4j
 public class JwtService {
 
+    public static final String CLAIM_ROLES = "roles";
+    public static final String CLAIM_ENABLED = "enabled";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
@@ -27,6 +39,31 @@ public class JwtService {
     @Value("${jwt.refresh-token-expiration}")
     private long refreshTokenExpiration;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize;
+
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    private Cache<String, Claims> claimsCache;
+
+    /**
+     * Monta a chave e o parser uma única vez. As claims de tokens já verificados
+     * ficam em cache até a expiração do próprio token, então requisições
+     * seguintes com o mesmo token não repetem a verificação HMAC.
+     */
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ExpiracaoDoToken())
+                .build();
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -36,8 +73,51 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Verifica assinatura e expiração do token e devolve suas claims.
+     * @param token JWT recebido
+     * @return claims do token, ou vazio se o token for inválido ou expirado
+     */
+    public Optional<Claims> parseToken(String token) {
+        try {
+            return Optional.of(extractAllClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token JWT rejeitado: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Gera o access token já com as authorities e o status do usuário, permitindo
+     * autenticar requisições apenas com o token, sem consultar o banco.
+     */
     public String generateAccessToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails, accessTokenExpiration);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_ROLES, userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList());
+        claims.put(CLAIM_ENABLED, userDetails.isEnabled());
+        return generateToken(claims, userDetails, accessTokenExpiration);
+    }
+
+    /**
+     * Indica se o token carrega as claims necessárias para autenticação sem estado.
+     */
+    public boolean hasUserClaims(Claims claims) {
+        return claims.containsKey(CLAIM_ROLES) && claims.containsKey(CLAIM_ENABLED);
+    }
+
+    /**
+     * Reconstrói o usuário a partir das claims de um access token já verificado.
+     */
+    public UserDetails toUserDetails(Claims claims) {
+        List<?> roles = claims.get(CLAIM_ROLES, List.class);
+        Boolean enabled = claims.get(CLAIM_ENABLED, Boolean.class);
+        return User.withUsername(claims.getSubject())
+                .password("")
+                .authorities(roles.stream().map(String::valueOf).toArray(String[]::new))
+                .disabled(!Boolean.TRUE.equals(enabled))
+                .build();
     }
 
     public String generateRefreshToken(UserDetails userDetails) {
@@ -52,14 +132,14 @@ public class JwtService {
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+            final Claims claims = extractAllClaims(token);
+            return claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims);
         } catch (Exception e) {
             log.error("Token validation failed: {}", e.getMessage());
             return false;
@@ -68,35 +148,56 @@ public class JwtService {
 
     public boolean isRefreshToken(String token) {
         try {
-            Claims claims = extractAllClaims(token);
-            return "refresh".equals(claims.get("type", String.class));
+            return isRefreshToken(extractAllClaims(token));
         } catch (Exception e) {
             return false;
         }
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isRefreshToken(Claims claims) {
+        return "refresh".equals(claims.get("type", String.class));
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        Claims claims = claimsCache.getIfPresent(token);
+        if (claims == null) {
+            claims = jwtParser.parseSignedClaims(token).getPayload();
+            claimsCache.put(token, claims);
+        }
+        return claims;
     }
 
     public long getAccessTokenExpiration() {
         return accessTokenExpiration;
     }
+
+    /**
+     * Mantém cada entrada do cache apenas até o instante de expiração do token.
+     */
+    private static class ExpiracaoDoToken implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String token, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return 0;
+            }
+            long restanteMillis = expiration.getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(restanteMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,73 @@
+package br.gov.mt.seplag.artistas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Buckets em memória com tamanho máximo e expiração por inatividade.
+ * <p>
+ * Um bucket parado por pelo menos o período de recarga já está cheio de novo,
+ * então descartá-lo e recriá-lo depois dá exatamente o mesmo resultado. Por isso
+ * o idle-timeout deve ser maior ou igual ao período de recarga do limite.
+ * <p>
+ * O descarte por tamanho (max-size) não tem essa garantia: com mais clientes ativos
+ * que max-size, o bucket de um cliente ainda esgotado pode ser descartado e o
+ * limite dele recomeça cheio. O max-size deve ficar acima do número de clientes
+ * ativos esperado num período de recarga.
+ * <p>
+ * Cada réplica tem seus próprios buckets; é o backend padrão e o usado nos testes.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.backend", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final Cache<String, Bucket> buckets;
+
+    @Autowired
+    public LocalRateLimitBucketStore(
+            @Value("${rate-limit.bucket-store.max-size:100000}") long maxSize,
+            @Value("${rate-limit.bucket-store.idle-timeout:1m}") Duration idleTimeout) {
+        this(maxSize, idleTimeout, Ticker.systemTicker());
+    }
+
+    LocalRateLimitBucketStore(long maxSize, Duration idleTimeout, Ticker ticker) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTimeout)
+                .ticker(ticker)
+                .build();
+        log.info("Rate limit com buckets locais: maxSize={}, idleTimeout={}", maxSize, idleTimeout);
+    }
+
+    @Override
+    public Bucket resolveBucket(String key, Supplier<BucketConfiguration> configuration) {
+        return buckets.get(key, k -> createBucket(configuration.get()));
+    }
+
+    long estimatedSize() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+
+    private Bucket createBucket(BucketConfiguration configuration) {
+        LocalBucketBuilder builder = Bucket.builder();
+        for (Bandwidth bandwidth : configuration.getBandwidths()) {
+            builder.addLimit(bandwidth);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,47 @@
+package br.gov.mt.seplag.artistas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Buckets distribuídos: o estado fica no backend do {@link ProxyManager} e é
+ * compartilhado por todas as réplicas, então o limite vale para o cluster inteiro.
+ * <p>
+ * A otimização informada (ex.: delaying) consome tokens localmente e só sincroniza
+ * com o backend em lote. Como esse estado local vive no próprio proxy, os proxies
+ * são reaproveitados por chave num cache limitado, com a mesma expiração por
+ * inatividade do store local.
+ */
+@Slf4j
+public class ProxyManagerRateLimitBucketStore implements RateLimitBucketStore {
+
+    private final ProxyManager<String> proxyManager;
+    private final Optimization optimization;
+    private final Cache<String, Bucket> proxies;
+
+    public ProxyManagerRateLimitBucketStore(ProxyManager<String> proxyManager, Optimization optimization,
+                                            long maxSize, Duration idleTimeout) {
+        this.proxyManager = proxyManager;
+        this.optimization = optimization;
+        this.proxies = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        log.info("Rate limit com buckets distribuídos: maxSize={}, idleTimeout={}", maxSize, idleTimeout);
+    }
+
+    @Override
+    public Bucket resolveBucket(String key, Supplier<BucketConfiguration> configuration) {
+        return proxies.get(key, k -> proxyManager.builder()
+                .withOptimization(optimization)
+                .build(k, configuration));
+    }
+}
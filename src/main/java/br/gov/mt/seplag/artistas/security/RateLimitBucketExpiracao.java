@@ -0,0 +1,62 @@
+package br.gov.mt.seplag.artistas.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Remove da tabela rate_limit_bucket os buckets sem escrita há mais de bucket-ttl.
+ * <p>
+ * Como no store local, um bucket parado por pelo menos o período de recarga já
+ * está cheio: apagar a linha e recriá-la na próxima requisição dá o mesmo
+ * resultado. A remoção é em lotes com SKIP LOCKED, sem esperar pelas linhas que
+ * uma requisição esteja usando; rodar em várias réplicas ao mesmo tempo é seguro.
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.backend", havingValue = "postgres")
+@Slf4j
+public class RateLimitBucketExpiracao {
+
+    static final int LOTE = 10_000;
+
+    static final String SQL_REMOVER = """
+            DELETE FROM rate_limit_bucket
+            WHERE id IN (SELECT id FROM rate_limit_bucket
+                         WHERE atualizado_em < CURRENT_TIMESTAMP - make_interval(secs => ?)
+                         LIMIT ?
+                         FOR UPDATE SKIP LOCKED)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration bucketTtl;
+
+    public RateLimitBucketExpiracao(JdbcTemplate jdbcTemplate,
+                                    @Value("${rate-limit.distributed.bucket-ttl:10m}") Duration bucketTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bucketTtl = bucketTtl;
+    }
+
+    /**
+     * @return quantidade de buckets removidos
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.distributed.cleanup-interval:5m}")
+    public long removerOciosos() {
+        // O corte usa o relógio do banco, o mesmo que preenche atualizado_em
+        long removidos = 0;
+        int lote;
+        do {
+            lote = jdbcTemplate.update(SQL_REMOVER, bucketTtl.toSeconds(), LOTE);
+            removidos += lote;
+        } while (lote == LOTE);
+
+        if (removidos > 0) {
+            log.info("Buckets de rate limit ociosos removidos: {}", removidos);
+        }
+        return removidos;
+    }
+}
@@ -0,0 +1,21 @@
+package br.gov.mt.seplag.artistas.security;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+import java.util.function.Supplier;
+
+/**
+ * Armazenamento dos buckets do rate limit, indexados pela chave do cliente
+ * (usuário autenticado ou IP).
+ */
+public interface RateLimitBucketStore {
+
+    /**
+     * Retorna o bucket da chave, criando-o com a configuração informada se ainda não existir.
+     * @param key chave do cliente
+     * @param configuration configuração usada apenas na criação do bucket
+     * @return bucket do cliente
+     */
+    Bucket resolveBucket(String key, Supplier<BucketConfiguration> configuration);
+}
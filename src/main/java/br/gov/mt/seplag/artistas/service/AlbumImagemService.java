@@ -3,35 +3,61 @@ package br.gov.mt.seplag.artistas.service;
 import br.gov.mt.seplag.artistas.domain.entity.Album;
 import br.gov.mt.seplag.artistas.domain.entity.AlbumImagem;
 import br.gov.mt.seplag.artistas.dto.AlbumImagemDTO;
+import br.gov.mt.seplag.artistas.dto.UploadEmPartesDTO;
+import br.gov.mt.seplag.artistas.exception.InvalidUploadException;
 import br.gov.mt.seplag.artistas.exception.ResourceNotFoundException;
 import br.gov.mt.seplag.artistas.repository.AlbumImagemRepository;
 import br.gov.mt.seplag.artistas.repository.AlbumRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AlbumImagemService {
 
+    // Limite do compose do S3/MinIO: até 10000 partes (tamanho mínimo em MinioService)
+    private static final int MAX_PARTES = 10_000;
+
     private final AlbumImagemRepository albumImagemRepository;
     private final AlbumRepository albumRepository;
     private final MinioService minioService;
+    private final ThumbnailService thumbnailService;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidacaoService cacheInvalidacaoService;
 
-    @Transactional
-    public List<AlbumImagemDTO> uploadImagens(Long albumId, MultipartFile[] files) {
-        Album album = albumRepository.findById(albumId)
-                .orElseThrow(() -> new ResourceNotFoundException("Álbum não encontrado com id: " + albumId));
+    @Qualifier("uploadExecutor")
+    private final ExecutorService uploadExecutor;
 
-        List<AlbumImagem> imagensSalvas = new ArrayList<>();
+    /**
+     * Envia as imagens ao MinIO em paralelo, fora de transação, e só então grava
+     * todas as referências numa única transação curta (INSERT em lote). Se algum
+     * upload ou a gravação falhar, os objetos já enviados são removidos do bucket.
+     */
+    public List<AlbumImagemDTO> uploadImagens(Long albumId, MultipartFile[] files) {
+        if (!albumRepository.existsById(albumId)) {
+            throw new ResourceNotFoundException("Álbum não encontrado com id: " + albumId);
+        }
 
+        List<MultipartFile> imagensValidas = new ArrayList<>();
         for (MultipartFile file : files) {
             if (file.isEmpty()) {
                 continue;
@@ -43,50 +69,302 @@ public class AlbumImagemService {
                 log.warn("Arquivo ignorado por não ser imagem: {}", file.getOriginalFilename());
                 continue;
             }
+            imagensValidas.add(file);
+        }
+
+        List<ObjetoArmazenado> objetos = enviarParaMinio(albumId, imagensValidas);
+
+        List<AlbumImagem> imagensSalvas;
+        try {
+            imagensSalvas = transactionTemplate.execute(status -> {
+                travarConteudos(objetos);
+                Album album = albumRepository.getReferenceById(albumId);
+                List<AlbumImagem> imagens = new ArrayList<>();
+                for (int i = 0; i < imagensValidas.size(); i++) {
+                    imagens.add(novaImagem(album, imagensValidas.get(i).getOriginalFilename(), objetos.get(i)));
+                }
+                return albumImagemRepository.saveAll(imagens);
+            });
+        } catch (RuntimeException e) {
+            log.error("Erro ao salvar imagens do álbum {}", albumId);
+            removerNaoReferenciados(objetos);
+            throw e;
+        }
 
-            // Upload para MinIO
-            String objectKey = minioService.uploadFile(file, albumId);
+        log.info("{} imagem(ns) salva(s) para álbum {}", imagensSalvas.size(), albumId);
+        cacheInvalidacaoService.invalidarAlbum(albumId);
+        thumbnailService.gerarMiniaturasAsync(imagensSalvas);
+        return toDTOs(imagensSalvas);
+    }
 
-            // Salvar referência no banco
-            AlbumImagem imagem = AlbumImagem.builder()
-                    .album(album)
-                    .nomeArquivo(file.getOriginalFilename())
-                    .objectKey(objectKey)
-                    .build();
+    /**
+     * Upload de uma imagem a partir do corpo bruto da requisição, repassado ao
+     * MinIO em partes sem passar pelo multipart resolver (sem arquivo temporário
+     * e sem o limite de max-request-size).
+     */
+    public AlbumImagemDTO uploadImagemStream(Long albumId, String nomeArquivo, String contentType,
+                                             InputStream inputStream, long tamanho) {
+        validarAlbumEImagem(albumId, contentType);
+        ObjetoArmazenado objeto = minioService.uploadStream(contentType, inputStream, tamanho);
+        return toDTOs(List.of(salvarImagem(albumId, nomeArquivo, objeto))).get(0);
+    }
 
-            imagensSalvas.add(albumImagemRepository.save(imagem));
-            log.info("Imagem salva para álbum {}: {}", albumId, file.getOriginalFilename());
+    public UploadEmPartesDTO iniciarUploadEmPartes(Long albumId) {
+        if (!albumRepository.existsById(albumId)) {
+            throw new ResourceNotFoundException("Álbum não encontrado com id: " + albumId);
         }
+        String uploadId = UUID.randomUUID().toString();
+        log.info("Upload em partes {} iniciado para álbum {}", uploadId, albumId);
+        return toUploadEmPartesDTO(albumId, uploadId, List.of());
+    }
 
-        return imagensSalvas.stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    public UploadEmPartesDTO enviarParte(Long albumId, String uploadId, int numero,
+                                         InputStream inputStream, long tamanho) {
+        validarUploadId(uploadId);
+        if (numero < 1 || numero > MAX_PARTES) {
+            throw new InvalidUploadException("Número da parte deve estar entre 1 e " + MAX_PARTES);
+        }
+        if (!albumRepository.existsById(albumId)) {
+            throw new ResourceNotFoundException("Álbum não encontrado com id: " + albumId);
+        }
+        minioService.uploadParte(albumId, uploadId, numero, inputStream, tamanho);
+        return consultarUploadEmPartes(albumId, uploadId);
     }
 
-    @Transactional(readOnly = true)
-    public List<AlbumImagemDTO> listarImagensDoAlbum(Long albumId) {
+    /**
+     * Partes já recebidas: o cliente retoma o upload enviando apenas as que faltam.
+     */
+    public UploadEmPartesDTO consultarUploadEmPartes(Long albumId, String uploadId) {
+        validarUploadId(uploadId);
+        return toUploadEmPartesDTO(albumId, uploadId, minioService.listarPartes(albumId, uploadId));
+    }
+
+    public AlbumImagemDTO concluirUploadEmPartes(Long albumId, String uploadId, String nomeArquivo, String contentType) {
+        validarUploadId(uploadId);
+        validarAlbumEImagem(albumId, contentType);
+        ObjetoArmazenado objeto = minioService.concluirUploadEmPartes(albumId, uploadId, nomeArquivo, contentType);
+        return toDTOs(List.of(salvarImagem(albumId, nomeArquivo, objeto))).get(0);
+    }
+
+    public void cancelarUploadEmPartes(Long albumId, String uploadId) {
+        validarUploadId(uploadId);
+        minioService.cancelarUploadEmPartes(albumId, uploadId);
+    }
+
+    private void validarAlbumEImagem(Long albumId, String contentType) {
         if (!albumRepository.existsById(albumId)) {
             throw new ResourceNotFoundException("Álbum não encontrado com id: " + albumId);
         }
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new InvalidUploadException("O conteúdo enviado não é uma imagem: " + contentType);
+        }
+    }
 
-        return albumImagemRepository.findByAlbumId(albumId).stream()
-                .map(this::toDTO)
-                .collect(Collectors.toList());
+    private void validarUploadId(String uploadId) {
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidUploadException("Identificador de upload inválido: " + uploadId, e);
+        }
     }
 
-    private AlbumImagemDTO toDTO(AlbumImagem imagem) {
-        String url = null;
+    /**
+     * Metadados do arquivo da imagem, para o endpoint de conteúdo decidir entre
+     * 304, 206 ou 200 antes de abrir o stream no MinIO.
+     */
+    public MetadadosObjeto buscarConteudo(Long albumId, Long imagemId) {
+        AlbumImagem imagem = albumImagemRepository.findByIdAndAlbumId(imagemId, albumId)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Imagem não encontrada com id: " + imagemId + " no álbum: " + albumId));
+        return minioService.statFile(imagem.getObjectKey());
+    }
+
+    public InputStream abrirConteudo(String objectKey, long inicio, long tamanho) {
+        return minioService.downloadFile(objectKey, inicio, tamanho);
+    }
+
+    /**
+     * Remove a imagem do álbum. O objeto no MinIO (e suas miniaturas) só é apagado
+     * quando nenhuma outra imagem referencia o mesmo conteúdo. A contagem e a remoção
+     * do objeto acontecem sob o lock do conteúdo, antes do commit: um upload
+     * concorrente do mesmo conteúdo espera e, ao obter o lock, vê o objeto já apagado.
+     */
+    public void removerImagem(Long albumId, Long imagemId) {
+        transactionTemplate.execute(status -> {
+            AlbumImagem imagem = albumImagemRepository.findByIdAndAlbumId(imagemId, albumId)
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "Imagem não encontrada com id: " + imagemId + " no álbum: " + albumId));
+            if (imagem.getHashConteudo() != null) {
+                albumImagemRepository.lockConteudo(imagem.getHashConteudo());
+            }
+
+            albumImagemRepository.delete(imagem);
+            albumImagemRepository.flush();
+
+            if (imagem.getHashConteudo() == null || albumImagemRepository.countByHashConteudo(imagem.getHashConteudo()) == 0) {
+                List<String> chaves = new ArrayList<>(thumbnailService.chavesMiniaturas(imagem));
+                chaves.add(imagem.getObjectKey());
+                minioService.deleteFiles(chaves);
+            }
+            return null;
+        });
+        log.info("Imagem {} removida do álbum {}", imagemId, albumId);
+        cacheInvalidacaoService.invalidarAlbum(albumId);
+    }
+
+    /**
+     * Trava (em ordem, para não haver deadlock) os conteúdos que vão ganhar uma
+     * referência. Um conteúdo que já existia pode ter sido apagado pela remoção da
+     * última referência entre o upload e este ponto: nesse caso a gravação é
+     * recusada e o cliente envia de novo. Conteúdo novo foi gravado por este upload.
+     */
+    private void travarConteudos(List<ObjetoArmazenado> objetos) {
+        objetos.stream()
+                .map(ObjetoArmazenado::hash)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .forEach(albumImagemRepository::lockConteudo);
+        for (ObjetoArmazenado objeto : objetos) {
+            if (objeto.hash() != null && !objeto.novo() && !minioService.existeObjeto(objeto.objectKey())) {
+                throw new OptimisticLockingFailureException(
+                        "Conteúdo " + objeto.objectKey() + " removido durante o upload; envie a imagem novamente");
+            }
+        }
+    }
+
+    /**
+     * Grava a referência de um objeto já enviado; se a gravação falhar, remove o objeto.
+     */
+    private AlbumImagem salvarImagem(Long albumId, String nomeArquivo, ObjetoArmazenado objeto) {
         try {
-            url = minioService.getPresignedUrl(imagem.getObjectKey());
-        } catch (Exception e) {
-            log.warn("Erro ao gerar URL para imagem: {}", imagem.getObjectKey());
+            AlbumImagem imagem = transactionTemplate.execute(status -> {
+                travarConteudos(List.of(objeto));
+                return albumImagemRepository.save(novaImagem(albumRepository.getReferenceById(albumId), nomeArquivo, objeto));
+            });
+            log.info("Imagem salva para álbum {}: {}", albumId, nomeArquivo);
+            cacheInvalidacaoService.invalidarAlbum(albumId);
+            thumbnailService.gerarMiniaturasAsync(List.of(imagem));
+            return imagem;
+        } catch (RuntimeException e) {
+            log.error("Erro ao salvar imagem do álbum {}: {}", albumId, nomeArquivo);
+            removerNaoReferenciados(List.of(objeto));
+            throw e;
         }
+    }
 
-        return AlbumImagemDTO.builder()
-                .id(imagem.getId())
-                .albumId(imagem.getAlbum().getId())
-                .nomeArquivo(imagem.getNomeArquivo())
-                .url(url)
+    /**
+     * Nova referência a um objeto. Se o conteúdo já tinha miniaturas (upload
+     * duplicado), a imagem já nasce com elas.
+     */
+    private AlbumImagem novaImagem(Album album, String nomeArquivo, ObjetoArmazenado objeto) {
+        boolean miniaturasGeradas = !objeto.novo() && objeto.hash() != null
+                && albumImagemRepository.existsByHashConteudoAndMiniaturasGeradasTrue(objeto.hash());
+        return AlbumImagem.builder()
+                .album(album)
+                .nomeArquivo(nomeArquivo)
+                .objectKey(objeto.objectKey())
+                .hashConteudo(objeto.hash())
+                .miniaturasGeradas(miniaturasGeradas)
                 .build();
     }
+
+    private UploadEmPartesDTO toUploadEmPartesDTO(Long albumId, String uploadId, List<Integer> partes) {
+        return UploadEmPartesDTO.builder()
+                .uploadId(uploadId)
+                .albumId(albumId)
+                .partesRecebidas(partes)
+                .tamanhoMinimoParte(MinioService.TAMANHO_MINIMO_PARTE)
+                .build();
+    }
+
+    /**
+     * Faz os uploads em paralelo no executor limitado. Retorna os objetos na
+     * mesma ordem dos arquivos; se qualquer upload falhar, remove os que deram certo.
+     */
+    private List<ObjetoArmazenado> enviarParaMinio(Long albumId, List<MultipartFile> files) {
+        List<CompletableFuture<ObjetoArmazenado>> uploads = files.stream()
+                .map(file -> CompletableFuture.supplyAsync(() -> minioService.uploadFile(file), uploadExecutor))
+                .collect(Collectors.toList());
+
+        try {
+            CompletableFuture.allOf(uploads.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            List<ObjetoArmazenado> enviados = uploads.stream()
+                    .filter(upload -> !upload.isCompletedExceptionally())
+                    .map(CompletableFuture::join)
+                    .collect(Collectors.toList());
+            log.error("Falha no upload de imagens do álbum {}", albumId);
+            removerNaoReferenciados(enviados);
+            throw e.getCause() instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new RuntimeException("Erro ao fazer upload do arquivo", e.getCause());
+        }
+
+        return uploads.stream()
+                .map(CompletableFuture::join)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Compensação: remove os objetos enviados por este upload que não são
+     * referenciados por nenhuma imagem. Conteúdo que já existia no bucket
+     * (upload evitado) nunca é removido aqui.
+     */
+    private void removerNaoReferenciados(List<ObjetoArmazenado> objetos) {
+        List<ObjetoArmazenado> novos = objetos.stream().filter(ObjetoArmazenado::novo).toList();
+        if (novos.isEmpty()) {
+            return;
+        }
+        try {
+            // Sob o lock do conteúdo, como em removerImagem: um upload concorrente do mesmo conteúdo pode tê-lo referenciado
+            transactionTemplate.execute(status -> {
+                novos.stream()
+                        .map(ObjetoArmazenado::hash)
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .sorted()
+                        .forEach(albumImagemRepository::lockConteudo);
+                List<String> orfaos = novos.stream()
+                        .filter(objeto -> objeto.hash() == null || albumImagemRepository.countByHashConteudo(objeto.hash()) == 0)
+                        .map(ObjetoArmazenado::objectKey)
+                        .distinct()
+                        .collect(Collectors.toList());
+                if (!orfaos.isEmpty()) {
+                    log.warn("Removendo {} objeto(s) órfão(s) do upload", orfaos.size());
+                    minioService.deleteFiles(orfaos);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Objetos órfãos não puderam ser removidos: {}", novos.stream().map(ObjetoArmazenado::objectKey).toList());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<AlbumImagemDTO> listarImagensDoAlbum(Long albumId) {
+        if (!albumRepository.existsById(albumId)) {
+            throw new ResourceNotFoundException("Álbum não encontrado com id: " + albumId);
+        }
+
+        return toDTOs(albumImagemRepository.findByAlbumId(albumId));
+    }
+
+    private List<AlbumImagemDTO> toDTOs(List<AlbumImagem> imagens) {
+        Map<String, String> urls = minioService.getPresignedUrls(imagens.stream()
+                .flatMap(imagem -> Stream.concat(
+                        Stream.of(imagem.getObjectKey()),
+                        thumbnailService.chavesMiniaturas(imagem).stream()))
+                .collect(Collectors.toList()));
+
+        return imagens.stream()
+                .map(imagem -> AlbumImagemDTO.builder()
+                        .id(imagem.getId())
+                        .albumId(imagem.getAlbum().getId())
+                        .nomeArquivo(imagem.getNomeArquivo())
+                        .url(urls.get(imagem.getObjectKey()))
+                        .miniaturas(thumbnailService.urlsMiniaturas(imagem, urls))
+                        .build())
+                .collect(Collectors.toList());
+    }
 }
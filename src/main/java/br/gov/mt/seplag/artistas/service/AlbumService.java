@@ -1,28 +1,45 @@
 package br.gov.mt.seplag.artistas.service;
 
+import br.gov.mt.seplag.artistas.config.CacheConfig;
 import br.gov.mt.seplag.artistas.domain.entity.Album;
+import br.gov.mt.seplag.artistas.domain.entity.AlbumImagem;
 import br.gov.mt.seplag.artistas.domain.entity.Artista;
 import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
 import br.gov.mt.seplag.artistas.dto.AlbumDTO;
 import br.gov.mt.seplag.artistas.dto.AlbumImagemDTO;
 import br.gov.mt.seplag.artistas.dto.ArtistaDTO;
+import br.gov.mt.seplag.artistas.dto.CursorPageDTO;
+import br.gov.mt.seplag.artistas.exception.PreconditionFailedException;
 import br.gov.mt.seplag.artistas.exception.ResourceNotFoundException;
+import br.gov.mt.seplag.artistas.repository.AlbumImagemRepository;
 import br.gov.mt.seplag.artistas.repository.AlbumRepository;
 import br.gov.mt.seplag.artistas.repository.ArtistaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -30,9 +47,16 @@ import java.util.stream.Collectors;
 public class AlbumService {
 
     private final AlbumRepository albumRepository;
+    private final AlbumImagemRepository albumImagemRepository;
     private final ArtistaRepository artistaRepository;
     private final MinioService minioService;
+    private final ThumbnailService thumbnailService;
     private final SimpMessagingTemplate messagingTemplate;
+    private final CacheInvalidacaoService cacheInvalidacaoService;
+
+    // O ETag do detalhe muda a cada janela: um 304 nunca prolonga URLs pré-assinadas além da margem de reuso
+    @Value("${minio.presigned-url-cache.safety-margin:300}")
+    private long janelaEtagSegundos;
 
     @Transactional(readOnly = true)
     public Page<AlbumDTO> listarTodos(int page, int size, String sortDir) {
@@ -40,9 +64,51 @@ public class AlbumService {
                 ? Sort.by("titulo").descending()
                 : Sort.by("titulo").ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
-        return albumRepository.findAll(pageable).map(this::toDTO);
+        return carregarPagina(albumRepository.findPageIds(pageable));
+    }
+
+    /**
+     * Paginação por cursor (keyset) ordenada por (titulo, id). Não usa OFFSET nem
+     * executa COUNT(*): busca um item a mais que o tamanho pedido apenas para saber
+     * se existe próxima página.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<AlbumDTO> listarPorCursor(String cursor, int size, String sortDir) {
+        boolean desc = sortDir.equalsIgnoreCase("desc");
+        Pageable limite = PageRequest.of(0, size + 1);
+
+        List<Long> ids;
+        if (cursor == null || cursor.isBlank()) {
+            ids = desc ? albumRepository.findIdsKeysetDesc(limite) : albumRepository.findIdsKeysetAsc(limite);
+        } else {
+            KeysetCursor posicao = KeysetCursor.decode(cursor);
+            ids = desc
+                    ? albumRepository.findIdsKeysetDescAfter(posicao.chave(), posicao.id(), limite)
+                    : albumRepository.findIdsKeysetAscAfter(posicao.chave(), posicao.id(), limite);
+        }
+
+        boolean hasNext = ids.size() > size;
+        List<AlbumDTO> albuns = carregarAlbuns(hasNext ? ids.subList(0, size) : ids);
+
+        String nextCursor = null;
+        if (hasNext && !albuns.isEmpty()) {
+            AlbumDTO ultimo = albuns.get(albuns.size() - 1);
+            nextCursor = new KeysetCursor(ultimo.getTitulo(), ultimo.getId()).encode();
+        }
+
+        return CursorPageDTO.<AlbumDTO>builder()
+                .content(albuns)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
     }
 
+    /**
+     * Detalhe do álbum, servido do cache. O TTL do cache fica abaixo da validade
+     * das URLs pré-assinadas embutidas no DTO.
+     */
+    @Cacheable(cacheNames = CacheConfig.ALBUNS, key = "#id")
     @Transactional(readOnly = true)
     public AlbumDTO buscarPorId(Long id) {
         Album album = albumRepository.findByIdWithArtistas(id)
@@ -50,6 +116,73 @@ public class AlbumService {
         return toDTO(album);
     }
 
+    /**
+     * Recarrega o detalhe do banco e substitui a entrada do cache. Usado quando o
+     * cache ainda não recebeu a invalidação de uma alteração já visível no banco.
+     */
+    @CachePut(cacheNames = CacheConfig.ALBUNS, key = "#id")
+    @Transactional(readOnly = true)
+    public AlbumDTO recarregar(Long id) {
+        Album album = albumRepository.findByIdWithArtistas(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Álbum não encontrado com id: " + id));
+        return toDTO(album);
+    }
+
+    /**
+     * Versão atual do detalhe do álbum, lida com uma única consulta sem carregar
+     * artistas nem imagens. Base do ETag para requisições condicionais.
+     */
+    @Transactional(readOnly = true)
+    public String buscarVersao(Long id) {
+        return albumRepository.findVersaoById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Álbum não encontrado com id: " + id));
+    }
+
+    /**
+     * Versão do detalhe já montado, no mesmo formato de {@link #buscarVersao(Long)}.
+     */
+    public String versaoDe(AlbumDTO album) {
+        String artistas = album.getArtistas().stream()
+                .sorted(Comparator.comparing(ArtistaDTO::getId))
+                .map(a -> a.getId() + ":" + DigestUtils.md5DigestAsHex(
+                        (a.getNome() + ":" + a.getTipo()).getBytes(StandardCharsets.UTF_8)))
+                .collect(Collectors.joining(","));
+        String imagens = album.getImagens().stream()
+                .sorted(Comparator.comparing(AlbumImagemDTO::getId))
+                .map(img -> img.getId() + ":" + (img.getMiniaturas().isEmpty() ? 0 : 1))
+                .collect(Collectors.joining(","));
+        return album.getVersao() + "|" + artistas + "|" + imagens;
+    }
+
+    /**
+     * ETag fraco do detalhe: a representação leva URLs pré-assinadas, que mudam
+     * sem que o álbum mude, então só a equivalência semântica é garantida.
+     * Começa pela versão da entidade ({@code W/"<versao>-<hash>"}), para que o mesmo
+     * valor, do GET ou do PUT, sirva de If-Match na edição.
+     */
+    public String etag(String versao) {
+        long janela = System.currentTimeMillis() / 1000 / janelaEtagSegundos;
+        String hash = DigestUtils.md5DigestAsHex((versao + "|" + janela).getBytes(StandardCharsets.UTF_8));
+        String versaoEntidade = versao.substring(0, versao.indexOf('|'));
+        return "W/\"" + versaoEntidade + "-" + hash + "\"";
+    }
+
+    /**
+     * Álbuns de um artista pela PK de artista_album. O total vem da contagem
+     * desnormalizada em artista, sem COUNT(*) por página.
+     */
+    @Transactional(readOnly = true)
+    public Page<AlbumDTO> listarPorArtista(Long artistaId, int page, int size, String sortDir) {
+        Integer total = artistaRepository.findQuantidadeAlbunsById(artistaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Artista não encontrado com id: " + artistaId));
+        Sort sort = sortDir.equalsIgnoreCase("desc")
+                ? Sort.by("titulo").descending()
+                : Sort.by("titulo").ascending();
+        Pageable pageable = PageRequest.of(page, size, sort.and(Sort.by("id")));
+        List<Long> ids = albumRepository.findIdsByArtistaId(artistaId, pageable);
+        return new PageImpl<>(carregarAlbuns(ids), pageable, total);
+    }
+
     @Transactional(readOnly = true)
     public Page<AlbumDTO> buscarPorTipoArtista(String tipo, int page, int size, String sortDir) {
         TipoArtista tipoArtista = TipoArtista.valueOf(tipo.toUpperCase());
@@ -57,7 +190,7 @@ public class AlbumService {
                 ? Sort.by("titulo").descending()
                 : Sort.by("titulo").ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
-        return albumRepository.findByTipoArtista(tipoArtista, pageable).map(this::toDTO);
+        return carregarPagina(albumRepository.findPageIdsByTipoArtista(tipoArtista, pageable));
     }
 
     @Transactional(readOnly = true)
@@ -66,7 +199,26 @@ public class AlbumService {
                 ? Sort.by("titulo").descending()
                 : Sort.by("titulo").ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
-        return albumRepository.findByArtistaNome(nomeArtista, pageable).map(this::toDTO);
+        return carregarPagina(albumRepository.findPageIdsByArtistaNome(nomeArtista, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<AlbumDTO> buscarPorTitulo(String titulo, int page, int size, String sortDir) {
+        Sort sort = sortDir.equalsIgnoreCase("desc")
+                ? Sort.by("titulo").descending()
+                : Sort.by("titulo").ascending();
+        Pageable pageable = PageRequest.of(page, size, sort);
+        return carregarPagina(albumRepository.findPageIdsByTitulo(titulo, pageable));
+    }
+
+    /**
+     * Busca por título ordenada por relevância (similaridade trigram), incluindo
+     * títulos parecidos que não contêm o termo exato.
+     */
+    @Transactional(readOnly = true)
+    public Page<AlbumDTO> buscarPorTituloRelevancia(String titulo, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        return carregarPagina(albumRepository.findPageIdsByTituloRelevancia(titulo, pageable));
     }
 
     @Transactional
@@ -84,6 +236,8 @@ public class AlbumService {
 
         album = albumRepository.save(album);
         log.info("Álbum criado: {}", album.getTitulo());
+        // A contagem de álbuns vai no DTO do artista
+        cacheInvalidacaoService.invalidarArtistas(artistaIds(artistas));
 
         AlbumDTO albumDTO = toDTO(album);
 
@@ -94,25 +248,94 @@ public class AlbumService {
         return albumDTO;
     }
 
+    /**
+     * Atualização com concorrência otimista: If-Match diferente da versão atual
+     * resulta em 412; versão do corpo desatualizada, ou escrita concorrente entre a
+     * leitura e o flush, em 409 (o UPDATE filtra pela versão, sem lock de linha).
+     */
     @Transactional
-    public AlbumDTO atualizar(Long id, AlbumDTO dto) {
+    public AlbumDTO atualizar(Long id, AlbumDTO dto, String ifMatch) {
         Album album = albumRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Álbum não encontrado com id: " + id));
 
+        if (!Precondicoes.ifMatchAtendido(ifMatch, album.getVersao())) {
+            throw new PreconditionFailedException("Álbum " + id + " está na versão " + album.getVersao()
+                    + ", diferente da informada em If-Match");
+        }
+        if (dto.getVersao() != null && !dto.getVersao().equals(album.getVersao())) {
+            throw new ObjectOptimisticLockingFailureException(Album.class, id);
+        }
+
         Set<Artista> artistas = new HashSet<>(artistaRepository.findAllById(dto.getArtistaIds()));
 
         if (artistas.isEmpty()) {
             throw new ResourceNotFoundException("Nenhum artista encontrado com os IDs fornecidos");
         }
 
+        Set<Long> artistasAfetados = new HashSet<>(artistaIds(album.getArtistas()));
+        artistasAfetados.addAll(artistaIds(artistas));
+
         album.setTitulo(dto.getTitulo());
         album.setArtistas(artistas);
-        album = albumRepository.save(album);
+        // Flush aqui: a versão incrementada volta no DTO e o conflito surge dentro do método
+        album = albumRepository.saveAndFlush(album);
         log.info("Álbum atualizado: {}", album.getTitulo());
+        cacheInvalidacaoService.invalidarAlbum(id);
+        cacheInvalidacaoService.invalidarArtistas(artistasAfetados);
         return toDTO(album);
     }
 
+    /**
+     * Monta a página em duas fases: a consulta paginada traz apenas os IDs e, em
+     * seguida, álbuns (com artistas) e imagens são carregados em lote. O número de
+     * consultas por página fica constante, independente do tamanho da página.
+     */
+    private Page<AlbumDTO> carregarPagina(Page<Long> paginaIds) {
+        List<AlbumDTO> albuns = carregarAlbuns(paginaIds.getContent());
+        return new PageImpl<>(albuns, paginaIds.getPageable(), paginaIds.getTotalElements());
+    }
+
+    /**
+     * Carrega os álbuns informados preservando a ordem dos IDs recebidos.
+     */
+    private List<AlbumDTO> carregarAlbuns(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, Album> albunsPorId = albumRepository.findAllWithArtistasByIdIn(ids).stream()
+                .collect(Collectors.toMap(Album::getId, Function.identity()));
+
+        List<AlbumImagem> imagens = albumImagemRepository.findByAlbumIdIn(ids);
+        Map<Long, List<AlbumImagem>> imagensPorAlbum = imagens.stream()
+                .collect(Collectors.groupingBy(img -> img.getAlbum().getId()));
+        Map<String, String> urls = minioService.getPresignedUrls(chavesComMiniaturas(imagens));
+
+        return ids.stream()
+                .map(albunsPorId::get)
+                .filter(Objects::nonNull)
+                .map(album -> toDTO(album, imagensPorAlbum.getOrDefault(album.getId(), List.of()), urls))
+                .collect(Collectors.toList());
+    }
+
     private AlbumDTO toDTO(Album album) {
+        Map<String, String> urls = minioService.getPresignedUrls(chavesComMiniaturas(album.getImagens()));
+        return toDTO(album, album.getImagens(), urls);
+    }
+
+    private static Set<Long> artistaIds(Set<Artista> artistas) {
+        return artistas.stream().map(Artista::getId).collect(Collectors.toSet());
+    }
+
+    private List<String> chavesComMiniaturas(List<AlbumImagem> imagens) {
+        return imagens.stream()
+                .flatMap(img -> Stream.concat(
+                        Stream.of(img.getObjectKey()),
+                        thumbnailService.chavesMiniaturas(img).stream()))
+                .collect(Collectors.toList());
+    }
+
+    private AlbumDTO toDTO(Album album, List<AlbumImagem> imagensDoAlbum, Map<String, String> urls) {
         List<ArtistaDTO> artistas = album.getArtistas().stream()
                 .map(a -> ArtistaDTO.builder()
                         .id(a.getId())
@@ -121,21 +344,14 @@ public class AlbumService {
                         .build())
                 .collect(Collectors.toList());
 
-        List<AlbumImagemDTO> imagens = album.getImagens().stream()
-                .map(img -> {
-                    String url = null;
-                    try {
-                        url = minioService.getPresignedUrl(img.getObjectKey());
-                    } catch (Exception e) {
-                        log.warn("Erro ao gerar URL para imagem: {}", img.getObjectKey());
-                    }
-                    return AlbumImagemDTO.builder()
-                            .id(img.getId())
-                            .albumId(album.getId())
-                            .nomeArquivo(img.getNomeArquivo())
-                            .url(url)
-                            .build();
-                })
+        List<AlbumImagemDTO> imagens = imagensDoAlbum.stream()
+                .map(img -> AlbumImagemDTO.builder()
+                        .id(img.getId())
+                        .albumId(album.getId())
+                        .nomeArquivo(img.getNomeArquivo())
+                        .url(urls.get(img.getObjectKey()))
+                        .miniaturas(thumbnailService.urlsMiniaturas(img, urls))
+                        .build())
                 .collect(Collectors.toList());
 
         return AlbumDTO.builder()
@@ -144,7 +360,8 @@ public class AlbumService {
                 .dataCriacao(album.getDataCriacao())
                 .artistas(artistas)
                 .imagens(imagens)
-                .artistaIds(album.getArtistas().stream().map(Artista::getId).collect(Collectors.toSet()))
+                .versao(album.getVersao())
+                .artistaIds(artistaIds(album.getArtistas()))
                 .build();
     }
 }
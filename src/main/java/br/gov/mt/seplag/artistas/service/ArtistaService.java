@@ -1,20 +1,29 @@
 package br.gov.mt.seplag.artistas.service;
 
+import br.gov.mt.seplag.artistas.config.CacheConfig;
 import br.gov.mt.seplag.artistas.domain.entity.Artista;
 import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
 import br.gov.mt.seplag.artistas.dto.ArtistaDTO;
+import br.gov.mt.seplag.artistas.dto.CursorPageDTO;
+import br.gov.mt.seplag.artistas.exception.PreconditionFailedException;
 import br.gov.mt.seplag.artistas.exception.ResourceNotFoundException;
+import br.gov.mt.seplag.artistas.repository.AlbumRepository;
 import br.gov.mt.seplag.artistas.repository.ArtistaRepository;
+import br.gov.mt.seplag.artistas.repository.ArtistaRepository.VersaoArtista;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +31,8 @@ import java.util.List;
 public class ArtistaService {
 
     private final ArtistaRepository artistaRepository;
+    private final AlbumRepository albumRepository;
+    private final CacheInvalidacaoService cacheInvalidacaoService;
 
     @Transactional(readOnly = true)
     public Page<ArtistaDTO> listarTodos(int page, int size, String sortDir) {
@@ -32,6 +43,44 @@ public class ArtistaService {
         return artistaRepository.findAll(pageable).map(this::toDTO);
     }
 
+    /**
+     * Paginação por cursor (keyset) ordenada por (nome, id), sem OFFSET e sem COUNT(*).
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ArtistaDTO> listarPorCursor(String cursor, int size, String sortDir) {
+        boolean desc = sortDir.equalsIgnoreCase("desc");
+        Pageable limite = PageRequest.of(0, size + 1);
+
+        List<Artista> artistas;
+        if (cursor == null || cursor.isBlank()) {
+            artistas = desc ? artistaRepository.findKeysetDesc(limite) : artistaRepository.findKeysetAsc(limite);
+        } else {
+            KeysetCursor posicao = KeysetCursor.decode(cursor);
+            artistas = desc
+                    ? artistaRepository.findKeysetDescAfter(posicao.chave(), posicao.id(), limite)
+                    : artistaRepository.findKeysetAscAfter(posicao.chave(), posicao.id(), limite);
+        }
+
+        boolean hasNext = artistas.size() > size;
+        List<ArtistaDTO> content = (hasNext ? artistas.subList(0, size) : artistas).stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasNext && !content.isEmpty()) {
+            ArtistaDTO ultimo = content.get(content.size() - 1);
+            nextCursor = new KeysetCursor(ultimo.getNome(), ultimo.getId()).encode();
+        }
+
+        return CursorPageDTO.<ArtistaDTO>builder()
+                .content(content)
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    @Cacheable(cacheNames = CacheConfig.ARTISTAS, key = "#id")
     @Transactional(readOnly = true)
     public ArtistaDTO buscarPorId(Long id) {
         Artista artista = artistaRepository.findById(id)
@@ -39,13 +88,52 @@ public class ArtistaService {
         return toDTO(artista);
     }
 
+    /**
+     * Recarrega o artista do banco e substitui a entrada do cache, quando o cache
+     * ainda não recebeu a invalidação de uma alteração já visível no banco.
+     */
+    @CachePut(cacheNames = CacheConfig.ARTISTAS, key = "#id")
+    @Transactional(readOnly = true)
+    public ArtistaDTO recarregar(Long id) {
+        Artista artista = artistaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Artista não encontrado com id: " + id));
+        return toDTO(artista);
+    }
+
+    /**
+     * Versão e data da última alteração do artista, sem carregar a entidade.
+     */
+    @Transactional(readOnly = true)
+    public VersaoArtista buscarVersao(Long id) {
+        return artistaRepository.findVersaoById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Artista não encontrado com id: " + id));
+    }
+
+    /**
+     * A contagem de álbuns é mantida por trigger sem tocar em versao (o lock otimista
+     * só acompanha edições do artista), então entra no ETag ao lado da versão.
+     */
+    public String etag(Long versao, Integer quantidadeAlbuns) {
+        return "W/\"" + versao + "-" + quantidadeAlbuns + "\"";
+    }
+
     @Transactional(readOnly = true)
     public Page<ArtistaDTO> buscarPorNome(String nome, int page, int size, String sortDir) {
         Sort sort = sortDir.equalsIgnoreCase("desc")
                 ? Sort.by("nome").descending()
                 : Sort.by("nome").ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
-        return artistaRepository.findByNomeContainingIgnoreCase(nome, pageable).map(this::toDTO);
+        return artistaRepository.buscarPorNome(nome, pageable).map(this::toDTO);
+    }
+
+    /**
+     * Busca por nome ordenada por relevância (similaridade trigram), incluindo
+     * nomes parecidos que não contêm o termo exato.
+     */
+    @Transactional(readOnly = true)
+    public Page<ArtistaDTO> buscarPorNomeRelevancia(String nome, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        return artistaRepository.buscarPorNomeRelevancia(nome, pageable).map(this::toDTO);
     }
 
     @Transactional(readOnly = true)
@@ -68,15 +156,31 @@ public class ArtistaService {
         return toDTO(artista);
     }
 
+    /**
+     * Atualização com concorrência otimista, como em AlbumService: If-Match
+     * divergente resulta em 412 e versão desatualizada ou escrita concorrente em 409.
+     */
     @Transactional
-    public ArtistaDTO atualizar(Long id, ArtistaDTO dto) {
+    public ArtistaDTO atualizar(Long id, ArtistaDTO dto, String ifMatch) {
         Artista artista = artistaRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Artista não encontrado com id: " + id));
 
+        if (!Precondicoes.ifMatchAtendido(ifMatch, artista.getVersao())) {
+            throw new PreconditionFailedException("Artista " + id + " está na versão " + artista.getVersao()
+                    + ", diferente da informada em If-Match");
+        }
+        if (dto.getVersao() != null && !dto.getVersao().equals(artista.getVersao())) {
+            throw new ObjectOptimisticLockingFailureException(Artista.class, id);
+        }
+
         artista.setNome(dto.getNome());
         artista.setTipo(dto.getTipo());
-        artista = artistaRepository.save(artista);
+        artista = artistaRepository.saveAndFlush(artista);
         log.info("Artista atualizado: {}", artista.getNome());
+
+        // Os álbuns em cache trazem o nome e o tipo do artista
+        cacheInvalidacaoService.invalidarArtista(id);
+        cacheInvalidacaoService.invalidarAlbuns(albumRepository.findIdsByArtistaId(id));
         return toDTO(artista);
     }
 
@@ -90,6 +194,8 @@ public class ArtistaService {
                 .id(artista.getId())
                 .nome(artista.getNome())
                 .tipo(artista.getTipo())
+                .versao(artista.getVersao())
+                .quantidadeAlbuns(artista.getQuantidadeAlbuns())
                 .build();
     }
 }
@@ -0,0 +1,236 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.config.CacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Invalidação do cache do catálogo entre réplicas via LISTEN/NOTIFY do PostgreSQL.
+ * <p>
+ * Cada invalidação local publica uma mensagem curta no canal {@value #CANAL}
+ * ({@code origem;instante;cache;ids}). O NOTIFY é transacional: feito dentro da
+ * transação da escrita, só é entregue no commit. Cada réplica mantém uma conexão
+ * dedicada em LISTEN e remove as entradas das mensagens das outras réplicas.
+ * Ao reconectar, os caches são limpos por inteiro, já que mensagens podem ter se perdido.
+ */
+@Service
+@ConditionalOnProperty(name = "cache.invalidacao.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class CacheInvalidacaoBus {
+
+    static final String CANAL = "cache_invalidacao";
+    static final String TODOS = "*";
+
+    // O payload do NOTIFY é limitado a 8000 bytes
+    private static final int IDS_POR_MENSAGEM = 500;
+    private static final int ESPERA_NOTIFICACOES_MS = 1000;
+    private static final long ESPERA_RECONEXAO_MS = 5000;
+
+    private final CacheManager cacheManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final String origem = UUID.randomUUID().toString().substring(0, 8);
+    private final Timer lag;
+    private final Counter publicadas;
+    private final Counter recebidas;
+
+    private volatile boolean ativo;
+    private volatile Connection conexao;
+
+    public CacheInvalidacaoBus(CacheManager cacheManager, JdbcTemplate jdbcTemplate,
+                               DataSourceProperties dataSourceProperties, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.lag = Timer.builder("cache.invalidacao.lag")
+                .description("Tempo entre a publicação da invalidação e a remoção na réplica que a recebeu")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.publicadas = Counter.builder("cache.invalidacao.mensagens").tag("direcao", "publicada").register(meterRegistry);
+        this.recebidas = Counter.builder("cache.invalidacao.mensagens").tag("direcao", "recebida").register(meterRegistry);
+    }
+
+    /**
+     * Publica a invalidação das chaves informadas (ou de todo o cache, com ids vazio).
+     * Dentro de uma transação, a entrega acontece no commit.
+     */
+    public void publicar(String nomeCache, Collection<Long> ids) {
+        List<String> lotes = new ArrayList<>();
+        if (ids.isEmpty()) {
+            lotes.add(TODOS);
+        } else {
+            List<Long> lista = List.copyOf(ids);
+            for (int inicio = 0; inicio < lista.size(); inicio += IDS_POR_MENSAGEM) {
+                lotes.add(lista.subList(inicio, Math.min(inicio + IDS_POR_MENSAGEM, lista.size())).stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(",")));
+            }
+        }
+
+        for (String lote : lotes) {
+            String mensagem = String.join(";", origem, String.valueOf(System.currentTimeMillis()), nomeCache, lote);
+            jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, CANAL, mensagem);
+            publicadas.increment();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        ativo = true;
+        Thread.ofPlatform().daemon(true).name("cache-invalidacao-listener").start(this::escutar);
+    }
+
+    @PreDestroy
+    public void parar() {
+        ativo = false;
+        fecharConexao();
+    }
+
+    private void escutar() {
+        boolean reconexao = false;
+        while (ativo) {
+            try (Connection novaConexao = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                conexao = novaConexao;
+                try (Statement statement = novaConexao.createStatement()) {
+                    statement.execute("LISTEN " + CANAL);
+                }
+                log.info("Escutando invalidações de cache no canal {} (origem {})", CANAL, origem);
+                if (reconexao) {
+                    log.info("Reconectado ao canal de invalidação; limpando os caches do catálogo");
+                    limparTudo();
+                }
+                reconexao = true;
+
+                PGConnection pgConnection = novaConexao.unwrap(PGConnection.class);
+                while (ativo) {
+                    PGNotification[] notificacoes = pgConnection.getNotifications(ESPERA_NOTIFICACOES_MS);
+                    if (notificacoes != null) {
+                        for (PGNotification notificacao : notificacoes) {
+                            aplicar(notificacao.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!ativo) {
+                    return;
+                }
+                log.warn("Conexão de invalidação de cache perdida, reconectando em {}ms: {}",
+                        ESPERA_RECONEXAO_MS, e.getMessage());
+                esperarReconexao();
+            } finally {
+                conexao = null;
+            }
+        }
+    }
+
+    /**
+     * Uma mensagem que não pode ser aplicada não pode encerrar a thread de escuta:
+     * sem ela, a réplica deixaria de receber invalidações até ser reiniciada. Como as
+     * chaves da mensagem podem ter ficado no cache, os caches do catálogo são limpos.
+     */
+    void aplicar(String mensagem) {
+        try {
+            processar(mensagem);
+        } catch (RuntimeException e) {
+            log.error("Falha ao aplicar mensagem de invalidação '{}'; limpando os caches do catálogo", mensagem, e);
+            try {
+                limparTudo();
+            } catch (RuntimeException erroLimpeza) {
+                log.error("Falha ao limpar os caches do catálogo", erroLimpeza);
+            }
+        }
+    }
+
+    /**
+     * Aplica uma mensagem recebida. Mensagens da própria réplica são ignoradas:
+     * o evict local já foi feito por quem publicou.
+     */
+    void processar(String mensagem) {
+        String[] partes = mensagem.split(";", 4);
+        if (partes.length != 4) {
+            log.warn("Mensagem de invalidação inválida: {}", mensagem);
+            return;
+        }
+        if (origem.equals(partes[0])) {
+            return;
+        }
+
+        recebidas.increment();
+        Cache cache = cacheManager.getCache(partes[2]);
+        if (cache != null) {
+            if (TODOS.equals(partes[3])) {
+                cache.clear();
+            } else {
+                for (String id : partes[3].split(",")) {
+                    cache.evict(Long.valueOf(id));
+                }
+            }
+        }
+
+        try {
+            long atraso = System.currentTimeMillis() - Long.parseLong(partes[1]);
+            lag.record(Duration.ofMillis(Math.max(atraso, 0)));
+        } catch (NumberFormatException e) {
+            log.warn("Instante inválido na mensagem de invalidação: {}", mensagem);
+        }
+    }
+
+    String getOrigem() {
+        return origem;
+    }
+
+    private void limparTudo() {
+        for (String nome : List.of(CacheConfig.ALBUNS, CacheConfig.ARTISTAS, CacheConfig.REGIONAIS_ATIVAS)) {
+            Cache cache = cacheManager.getCache(nome);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    private void esperarReconexao() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ESPERA_RECONEXAO_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ativo = false;
+        }
+    }
+
+    private void fecharConexao() {
+        Connection atual = conexao;
+        if (atual != null) {
+            try {
+                atual.close();
+            } catch (SQLException e) {
+                log.debug("Erro ao fechar conexão de invalidação: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.config.CacheConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ponto único de invalidação do cache do catálogo. Dentro de uma transação o
+ * evict é adiado para depois do commit (ver {@link CacheConfig}); a invalidação
+ * também é publicada para as demais réplicas pelo {@link CacheInvalidacaoBus}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidacaoService {
+
+    private final CacheManager cacheManager;
+    private final Optional<CacheInvalidacaoBus> cacheInvalidacaoBus;
+
+    public void invalidarAlbum(Long albumId) {
+        invalidarAlbuns(List.of(albumId));
+    }
+
+    public void invalidarAlbuns(Collection<Long> albumIds) {
+        evict(CacheConfig.ALBUNS, albumIds);
+    }
+
+    public void invalidarArtista(Long artistaId) {
+        invalidarArtistas(List.of(artistaId));
+    }
+
+    public void invalidarArtistas(Collection<Long> artistaIds) {
+        evict(CacheConfig.ARTISTAS, artistaIds);
+    }
+
+    public void invalidarRegionaisAtivas() {
+        Cache cache = cacheManager.getCache(CacheConfig.REGIONAIS_ATIVAS);
+        if (cache != null) {
+            cache.clear();
+        }
+        cacheInvalidacaoBus.ifPresent(bus -> bus.publicar(CacheConfig.REGIONAIS_ATIVAS, List.of()));
+    }
+
+    private void evict(String nomeCache, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(nomeCache);
+        if (cache != null) {
+            log.debug("Invalidando {}::{}", nomeCache, ids);
+            ids.forEach(cache::evict);
+        }
+        cacheInvalidacaoBus.ifPresent(bus -> bus.publicar(nomeCache, ids));
+    }
+}
@@ -0,0 +1,93 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.dto.AlbumExportacaoDTO;
+import br.gov.mt.seplag.artistas.repository.CatalogoExportRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exportação do catálogo completo (álbuns com artistas e chaves das imagens) em
+ * NDJSON ou CSV, escrita à medida que as linhas chegam do cursor do banco: a
+ * memória usada não depende do número de álbuns.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportacaoService {
+
+    private static final int BUFFER_ESCRITA = 64 * 1024;
+
+    private final CatalogoExportRepository catalogoExportRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * A transação (somente leitura) mantém o cursor aberto durante toda a escrita.
+     * @return quantidade de álbuns exportados
+     */
+    @Transactional(readOnly = true)
+    public long exportar(OutputStream saida, FormatoCatalogo formato) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8), BUFFER_ESCRITA);
+        long exportados = 0;
+
+        if (formato == FormatoCatalogo.CSV) {
+            escritor.write("id,titulo,data_criacao,artistas,imagens\n");
+        }
+
+        try (Stream<AlbumExportacaoDTO> albuns = catalogoExportRepository.streamAlbuns()) {
+            Iterator<AlbumExportacaoDTO> iterador = albuns.iterator();
+            while (iterador.hasNext()) {
+                AlbumExportacaoDTO album = iterador.next();
+                if (formato == FormatoCatalogo.NDJSON) {
+                    escritor.write(objectMapper.writeValueAsString(album));
+                } else {
+                    escritor.write(linhaCsv(album));
+                }
+                escritor.write('\n');
+                exportados++;
+            }
+        }
+        escritor.flush();
+
+        log.info("Exportação concluída: formato={}, albuns={}", formato, exportados);
+        return exportados;
+    }
+
+    /**
+     * Artistas como Nome:TIPO (mesma sintaxe da importação) e imagens como chaves,
+     * separados por "|". A importação aceita este layout e usa só titulo e artistas.
+     */
+    private String linhaCsv(AlbumExportacaoDTO album) {
+        String artistas = album.getArtistas().stream()
+                .map(artista -> artista.getNome() + ":" + artista.getTipo())
+                .collect(Collectors.joining("|"));
+        String imagens = album.getImagens().stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining("|"));
+        return String.join(",",
+                String.valueOf(album.getId()),
+                campoCsv(album.getTitulo()),
+                album.getDataCriacao() != null ? album.getDataCriacao().toString() : "",
+                campoCsv(artistas),
+                campoCsv(imagens));
+    }
+
+    private String campoCsv(String valor) {
+        if (valor.contains(",") || valor.contains("\"") || valor.contains("\n") || valor.contains("\r")) {
+            return "\"" + valor.replace("\"", "\"\"") + "\"";
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,22 @@
+package br.gov.mt.seplag.artistas.service;
+
+/**
+ * Formatos de arquivo da importação e da exportação do catálogo.
+ */
+public enum FormatoCatalogo {
+    NDJSON,
+    CSV;
+
+    /**
+     * Nome do formato sem diferenciar maiúsculas (ex.: ?formato=csv).
+     * @throws IllegalArgumentException se não for ndjson nem csv
+     */
+    public static FormatoCatalogo deNome(String nome) {
+        for (FormatoCatalogo formato : values()) {
+            if (formato.name().equalsIgnoreCase(nome.trim())) {
+                return formato;
+            }
+        }
+        throw new IllegalArgumentException("Formato inválido (use ndjson ou csv): " + nome);
+    }
+}
@@ -0,0 +1,327 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
+import br.gov.mt.seplag.artistas.dto.AlbumImportacaoDTO;
+import br.gov.mt.seplag.artistas.dto.ArtistaDTO;
+import br.gov.mt.seplag.artistas.dto.ImportacaoResultadoDTO;
+import br.gov.mt.seplag.artistas.dto.ImportacaoResultadoDTO.ErroImportacaoDTO;
+import br.gov.mt.seplag.artistas.repository.CatalogoImportRepository;
+import br.gov.mt.seplag.artistas.repository.CatalogoImportRepository.NovoAlbum;
+import br.gov.mt.seplag.artistas.repository.CatalogoImportRepository.NovoArtista;
+import br.gov.mt.seplag.artistas.repository.CatalogoImportRepository.Vinculo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em massa de álbuns e artistas a partir de NDJSON ou CSV.
+ * <p>
+ * O corpo é lido linha a linha e gravado em lotes, cada um na sua transação, com
+ * INSERTs multi-valores e IDs reservados em bloco. Linhas inválidas são reportadas
+ * com o número da linha e não interrompem a importação; um lote que falha no banco
+ * é reportado inteiro e os demais seguem.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportacaoService {
+
+    // Linhas gravadas por transação
+    private static final int LOTE = 1000;
+
+    private static final int MAX_ERROS_LISTADOS = 1000;
+
+    private static final int TAMANHO_MAXIMO_NOME = 200;
+
+    private final CatalogoImportRepository catalogoImportRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheInvalidacaoService cacheInvalidacaoService;
+
+    /**
+     * NDJSON: um objeto por linha, {"titulo": "...", "artistas": [{"nome": "...", "tipo": "BANDA"}]}.
+     * CSV: colunas titulo,artistas, com os artistas no formato Nome:TIPO separados por "|",
+     * ou o layout da exportação (id,titulo,data_criacao,artistas,imagens), do qual só
+     * titulo e artistas são usados; a linha de cabeçalho é opcional. Artistas são associados pelo nome (sem diferenciar
+     * maiúsculas) e criados quando não existem.
+     */
+    public ImportacaoResultadoDTO importar(InputStream corpo, Charset charset, FormatoCatalogo formato) throws IOException {
+        Progresso progresso = new Progresso();
+        Map<String, Long> artistasConhecidos = new HashMap<>();
+        List<LinhaValida> lote = new ArrayList<>(LOTE);
+
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(corpo, charset))) {
+            long numero = 0;
+            String texto;
+            while ((texto = leitor.readLine()) != null) {
+                numero++;
+                if (texto.isBlank() || (formato == FormatoCatalogo.CSV && numero == 1 && cabecalhoCsv(texto))) {
+                    continue;
+                }
+                progresso.linhasProcessadas++;
+
+                try {
+                    AlbumImportacaoDTO album = formato == FormatoCatalogo.NDJSON
+                            ? objectMapper.readValue(texto, AlbumImportacaoDTO.class)
+                            : lerCsv(texto);
+                    lote.add(validar(numero, album));
+                } catch (JsonProcessingException e) {
+                    progresso.erro(numero, "JSON inválido: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    progresso.erro(numero, e.getMessage());
+                }
+
+                if (lote.size() == LOTE) {
+                    gravarLote(lote, artistasConhecidos, progresso);
+                    lote = new ArrayList<>(LOTE);
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            gravarLote(lote, artistasConhecidos, progresso);
+        }
+
+        log.info("Importação concluída: linhas={}, albuns={}, artistasCriados={}, erros={}",
+                progresso.linhasProcessadas, progresso.albunsCriados, progresso.artistasCriados, progresso.linhasComErro);
+        return progresso.resultado();
+    }
+
+    /**
+     * Os artistas resolvidos só entram no mapa da importação depois do commit: se o
+     * lote falhar, os IDs reservados nele não são reaproveitados.
+     */
+    private void gravarLote(List<LinhaValida> lote, Map<String, Long> artistasConhecidos, Progresso progresso) {
+        try {
+            LoteGravado gravado = transactionTemplate.execute(status -> gravar(lote, artistasConhecidos));
+            artistasConhecidos.putAll(gravado.artistasResolvidos());
+            progresso.albunsCriados += lote.size();
+            progresso.artistasCriados += gravado.artistasCriados();
+            // quantidadeAlbuns dos artistas vinculados mudou com o lote
+            cacheInvalidacaoService.invalidarArtistas(gravado.artistasVinculados());
+        } catch (DataAccessException e) {
+            String mensagem = "Lote não gravado: " + e.getMostSpecificCause().getMessage();
+            log.warn("Falha ao gravar lote da importação (linhas {} a {}): {}",
+                    lote.get(0).numero(), lote.get(lote.size() - 1).numero(), e.getMostSpecificCause().getMessage());
+            lote.forEach(linha -> progresso.erro(linha.numero(), mensagem));
+        }
+    }
+
+    private LoteGravado gravar(List<LinhaValida> lote, Map<String, Long> artistasConhecidos) {
+        catalogoImportRepository.lockImportacao();
+
+        // Artistas ainda não vistos nesta importação: primeiro procura pelo nome, o resto é criado
+        Map<String, ArtistaDTO> pendentes = new LinkedHashMap<>();
+        for (LinhaValida linha : lote) {
+            for (ArtistaDTO artista : linha.artistas()) {
+                String chave = chave(artista.getNome());
+                if (!artistasConhecidos.containsKey(chave)) {
+                    pendentes.putIfAbsent(chave, artista);
+                }
+            }
+        }
+
+        Map<String, Long> resolvidos = new HashMap<>();
+        if (!pendentes.isEmpty()) {
+            resolvidos.putAll(catalogoImportRepository.buscarArtistasPorNome(pendentes.keySet()));
+        }
+
+        List<Map.Entry<String, ArtistaDTO>> criar = pendentes.entrySet().stream()
+                .filter(pendente -> !resolvidos.containsKey(pendente.getKey()))
+                .toList();
+        List<Long> idsArtistas = catalogoImportRepository.reservarIdsArtista(criar.size());
+        List<NovoArtista> novosArtistas = new ArrayList<>(criar.size());
+        for (int i = 0; i < criar.size(); i++) {
+            ArtistaDTO artista = criar.get(i).getValue();
+            novosArtistas.add(new NovoArtista(idsArtistas.get(i), artista.getNome(), artista.getTipo()));
+            resolvidos.put(criar.get(i).getKey(), idsArtistas.get(i));
+        }
+        catalogoImportRepository.inserirArtistas(novosArtistas);
+
+        List<Long> idsAlbuns = catalogoImportRepository.reservarIdsAlbum(lote.size());
+        List<NovoAlbum> albuns = new ArrayList<>(lote.size());
+        List<Vinculo> vinculos = new ArrayList<>();
+        for (int i = 0; i < lote.size(); i++) {
+            Long albumId = idsAlbuns.get(i);
+            albuns.add(new NovoAlbum(albumId, lote.get(i).titulo()));
+            for (ArtistaDTO artista : lote.get(i).artistas()) {
+                String chave = chave(artista.getNome());
+                Long artistaId = artistasConhecidos.containsKey(chave) ? artistasConhecidos.get(chave) : resolvidos.get(chave);
+                vinculos.add(new Vinculo(artistaId, albumId));
+            }
+        }
+        catalogoImportRepository.inserirAlbuns(albuns);
+        catalogoImportRepository.inserirVinculos(vinculos);
+
+        Set<Long> artistasVinculados = vinculos.stream().map(Vinculo::artistaId).collect(Collectors.toSet());
+        return new LoteGravado(resolvidos, novosArtistas.size(), artistasVinculados);
+    }
+
+    private LinhaValida validar(long numero, AlbumImportacaoDTO album) {
+        // Linha NDJSON "null"
+        if (album == null) {
+            throw new IllegalArgumentException("Linha não contém um álbum");
+        }
+        String titulo = album.getTitulo() == null ? "" : album.getTitulo().trim();
+        if (titulo.isEmpty()) {
+            throw new IllegalArgumentException("Título é obrigatório");
+        }
+        if (titulo.length() > TAMANHO_MAXIMO_NOME) {
+            throw new IllegalArgumentException("Título deve ter no máximo 200 caracteres");
+        }
+        if (album.getArtistas() == null || album.getArtistas().isEmpty()) {
+            throw new IllegalArgumentException("Deve ter pelo menos um artista associado");
+        }
+
+        List<ArtistaDTO> artistas = new ArrayList<>(album.getArtistas().size());
+        for (ArtistaDTO artista : album.getArtistas()) {
+            if (artista == null) {
+                throw new IllegalArgumentException("Artista nulo na lista de artistas");
+            }
+            String nome = artista.getNome() == null ? "" : artista.getNome().trim();
+            if (nome.isEmpty()) {
+                throw new IllegalArgumentException("Nome do artista é obrigatório");
+            }
+            if (nome.length() > TAMANHO_MAXIMO_NOME) {
+                throw new IllegalArgumentException("Nome do artista deve ter no máximo 200 caracteres");
+            }
+            if (artista.getTipo() == null) {
+                throw new IllegalArgumentException("Tipo é obrigatório (CANTOR ou BANDA) para o artista " + nome);
+            }
+            artistas.add(ArtistaDTO.builder().nome(nome).tipo(artista.getTipo()).build());
+        }
+        return new LinhaValida(numero, titulo, artistas);
+    }
+
+    private AlbumImportacaoDTO lerCsv(String linha) {
+        List<String> campos = separarCsv(linha);
+        String titulo;
+        String colunaArtistas;
+        if (campos.size() == 2) {
+            titulo = campos.get(0);
+            colunaArtistas = campos.get(1);
+        } else if (campos.size() == 5) {
+            // Linha da exportação: id, data_criacao e imagens não se aplicam a um álbum novo
+            titulo = campos.get(1);
+            colunaArtistas = campos.get(3);
+        } else {
+            throw new IllegalArgumentException("Esperadas 2 colunas (titulo,artistas) ou 5 "
+                    + "(id,titulo,data_criacao,artistas,imagens), encontradas " + campos.size());
+        }
+
+        List<ArtistaDTO> artistas = new ArrayList<>();
+        for (String item : colunaArtistas.split("\\|")) {
+            if (item.isBlank()) {
+                continue;
+            }
+            int separador = item.lastIndexOf(':');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Artista sem tipo (use Nome:CANTOR ou Nome:BANDA): " + item.trim());
+            }
+            artistas.add(ArtistaDTO.builder()
+                    .nome(item.substring(0, separador))
+                    .tipo(tipoArtista(item.substring(separador + 1)))
+                    .build());
+        }
+        return new AlbumImportacaoDTO(titulo, artistas);
+    }
+
+    /**
+     * Separa uma linha CSV por vírgulas, respeitando campos entre aspas ("" escapa
+     * aspas). Campos com quebra de linha não são suportados.
+     */
+    private List<String> separarCsv(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        if (entreAspas) {
+            throw new IllegalArgumentException("Aspas não fechadas na linha CSV");
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+
+    private TipoArtista tipoArtista(String valor) {
+        try {
+            return TipoArtista.valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Tipo de artista inválido (use CANTOR ou BANDA): " + valor.trim());
+        }
+    }
+
+    private boolean cabecalhoCsv(String linha) {
+        String cabecalho = linha.replace("\"", "").replace(" ", "");
+        return cabecalho.equalsIgnoreCase("titulo,artistas")
+                || cabecalho.equalsIgnoreCase("id,titulo,data_criacao,artistas,imagens");
+    }
+
+    private static String chave(String nome) {
+        return nome.toLowerCase(Locale.ROOT);
+    }
+
+    private record LinhaValida(long numero, String titulo, List<ArtistaDTO> artistas) {}
+
+    private record LoteGravado(Map<String, Long> artistasResolvidos, int artistasCriados, Set<Long> artistasVinculados) {}
+
+    private static final class Progresso {
+        private long linhasProcessadas;
+        private long albunsCriados;
+        private long artistasCriados;
+        private long linhasComErro;
+        private final List<ErroImportacaoDTO> erros = new ArrayList<>();
+
+        void erro(long linha, String mensagem) {
+            linhasComErro++;
+            if (erros.size() < MAX_ERROS_LISTADOS) {
+                erros.add(new ErroImportacaoDTO(linha, mensagem));
+            }
+        }
+
+        ImportacaoResultadoDTO resultado() {
+            return ImportacaoResultadoDTO.builder()
+                    .linhasProcessadas(linhasProcessadas)
+                    .albunsCriados(albunsCriados)
+                    .artistasCriados(artistasCriados)
+                    .linhasComErro(linhasComErro)
+                    .erros(erros)
+                    .build();
+        }
+    }
+}
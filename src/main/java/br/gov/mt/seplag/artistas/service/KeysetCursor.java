@@ -0,0 +1,31 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posição da paginação keyset: chave de ordenação e ID do último item retornado.
+ * Trafega para o cliente como um token opaco em Base64 URL-safe.
+ */
+public record KeysetCursor(String chave, Long id) {
+
+    private static final char SEPARADOR = ':';
+
+    public String encode() {
+        String bruto = id + String.valueOf(SEPARADOR) + chave;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(bruto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String bruto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = bruto.indexOf(SEPARADOR);
+            return new KeysetCursor(bruto.substring(separador + 1), Long.parseLong(bruto.substring(0, separador)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Cursor inválido: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package br.gov.mt.seplag.artistas.service;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Metadados de um objeto do MinIO, obtidos sem baixar o conteúdo (statObject).
+ * @param objectKey caminho do objeto no bucket
+ * @param etag ETag do objeto no MinIO, sem aspas
+ * @param tamanho tamanho em bytes
+ * @param contentType tipo do conteúdo
+ * @param ultimaModificacao data da última gravação
+ */
+public record MetadadosObjeto(String objectKey, String etag, long tamanho, String contentType,
+                              ZonedDateTime ultimaModificacao) {
+}
@@ -1,23 +1,54 @@
 package br.gov.mt.seplag.artistas.service;
 
+import br.gov.mt.seplag.artistas.exception.InvalidUploadException;
+import br.gov.mt.seplag.artistas.exception.ResourceNotFoundException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MinioService {
+
+    // Limite do compose do S3/MinIO para todas as partes, exceto a última
+    static final long TAMANHO_MINIMO_PARTE = 5L * 1024 * 1024;
  
     private final MinioClient minioClient;
+    private final MeterRegistry meterRegistry;
 
     @Value("${minio.bucket-name}")
     private String bucketName;
@@ -25,23 +56,53 @@ public class MinioService {
     @Value("${minio.presigned-url-expiry}")
     private int presignedUrlExpiry;
 
+    @Value("${minio.upload.part-size:10MB}")
+    private DataSize uploadPartSize;
+
+    @Value("${minio.presigned-url-cache.max-size:10000}")
+    private long presignedUrlCacheMaxSize;
+
+    @Value("${minio.presigned-url-cache.safety-margin:300}")
+    private int presignedUrlSafetyMargin;
+
+    private Cache<String, String> presignedUrlCache;
+
     /**
-     * Faz upload de um arquivo para o MinIO
+     * Inicializa o cache de URLs pré-assinadas. Cada URL fica no cache até
+     * faltar apenas a margem de segurança para sua expiração, garantindo que
+     * o cliente sempre receba uma URL com pelo menos essa validade restante.
+     */
+    @PostConstruct
+    void initPresignedUrlCache() {
+        long ttlSegundos = Math.max(presignedUrlExpiry - presignedUrlSafetyMargin, 0);
+        presignedUrlCache = Caffeine.newBuilder()
+                .maximumSize(presignedUrlCacheMaxSize)
+                .expireAfterWrite(ttlSegundos, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, presignedUrlCache, "minio.presigned-urls");
+        log.info("Cache de URLs pré-assinadas: maxSize={}, ttl={}s", presignedUrlCacheMaxSize, ttlSegundos);
+    }
+
+    /**
+     * Faz upload de um arquivo para o MinIO, endereçado pelo SHA-256 do conteúdo.
+     * O hash é calculado antes do envio (o arquivo já está no disco/memória do
+     * multipart), então um conteúdo que já está no bucket não é enviado de novo.
      * @param file arquivo a ser enviado
-     * @param albumId ID do álbum associado
-     * @return objectKey (caminho do objeto no bucket)
+     * @return objeto armazenado (chave, hash e se houve PUT)
      */
-    public String uploadFile(MultipartFile file, Long albumId) {
+    public ObjetoArmazenado uploadFile(MultipartFile file) {
         try {
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null && originalFilename.contains(".")
-                    ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                    : "";
+            String hash;
+            try (InputStream inputStream = file.getInputStream()) {
+                hash = calcularHash(inputStream);
+            }
 
-            String objectKey = String.format("album-%d/%s%s",
-                    albumId,
-                    UUID.randomUUID().toString(),
-                    extension);
+            String objectKey = chaveConteudo(hash);
+            if (objetoExiste(objectKey)) {
+                log.info("Conteúdo já armazenado, upload evitado: {}", objectKey);
+                return new ObjetoArmazenado(objectKey, hash, false);
+            }
 
             try (InputStream inputStream = file.getInputStream()) {
                 minioClient.putObject(
@@ -55,7 +116,7 @@ public class MinioService {
             }
 
             log.info("Arquivo uploaded com sucesso: {}", objectKey);
-            return objectKey;
+            return new ObjetoArmazenado(objectKey, hash, true);
 
         } catch (Exception e) {
             log.error("Erro ao fazer upload do arquivo: {}", e.getMessage());
@@ -64,11 +125,391 @@ public class MinioService {
     }
 
     /**
-     * Gera uma URL pré-assinada para acesso ao arquivo com expiração de 30 minutos
+     * Envia o conteúdo de um stream direto para o MinIO, em multipart upload com
+     * partes de tamanho fixo, sem gravar o arquivo em disco antes. Apenas uma parte
+     * fica em memória por vez.
+     * <p>
+     * O SHA-256 é calculado durante o envio, que por isso vai para uma chave
+     * temporária; no fim o objeto é copiado (no próprio MinIO) para a chave do
+     * conteúdo, ou descartado se esse conteúdo já existia. A cópia usa composeObject
+     * com uma única origem: acima de 5 GiB, limite do CopyObject simples, o MinIO a
+     * faz em partes (UploadPartCopy), sem o conteúdo passar pela API.
+     * @param contentType tipo do conteúdo
+     * @param inputStream corpo da requisição
+     * @param tamanho tamanho total em bytes, ou -1 se desconhecido
+     * @return objeto armazenado (chave, hash e se o conteúdo era novo)
+     */
+    public ObjetoArmazenado uploadStream(String contentType, InputStream inputStream, long tamanho) {
+        String chaveTemporaria = "uploads/tmp/" + UUID.randomUUID();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(chaveTemporaria)
+                            .stream(new DigestInputStream(inputStream, digest), tamanho, uploadPartSize.toBytes())
+                            .contentType(contentType)
+                            .build()
+            );
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String objectKey = chaveConteudo(hash);
+            boolean novo = !objetoExiste(objectKey);
+            if (novo) {
+                minioClient.composeObject(
+                        ComposeObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(objectKey)
+                                .sources(List.of(ComposeSource.builder().bucket(bucketName).object(chaveTemporaria).build()))
+                                .headers(Map.of("Content-Type", contentType))
+                                .build()
+                );
+                log.info("Arquivo enviado via stream: {}", objectKey);
+            } else {
+                log.info("Conteúdo já armazenado, cópia evitada: {}", objectKey);
+            }
+            return new ObjetoArmazenado(objectKey, hash, novo);
+        } catch (Exception e) {
+            log.error("Erro ao fazer upload via stream: {}", e.getMessage());
+            throw new RuntimeException("Erro ao fazer upload do arquivo", e);
+        } finally {
+            removerObjetos(List.of(chaveTemporaria));
+        }
+    }
+
+    /**
+     * Grava um conteúdo já em memória (ex.: miniaturas geradas pela API)
+     * @param objectKey caminho do objeto no bucket
+     * @param conteudo bytes do objeto
+     * @param contentType tipo do conteúdo
+     */
+    public void uploadBytes(String objectKey, byte[] conteudo, String contentType) {
+        try (InputStream inputStream = new ByteArrayInputStream(conteudo)) {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectKey)
+                            .stream(inputStream, conteudo.length, -1)
+                            .contentType(contentType)
+                            .build()
+            );
+            log.debug("Objeto gravado: {} ({} bytes)", objectKey, conteudo.length);
+        } catch (Exception e) {
+            log.error("Erro ao gravar objeto {}: {}", objectKey, e.getMessage());
+            throw new RuntimeException("Erro ao gravar objeto", e);
+        }
+    }
+
+    /**
+     * Abre o conteúdo de um objeto do bucket. Quem chama deve fechar o stream.
+     * @param objectKey caminho do objeto no bucket
+     * @return stream do conteúdo
+     */
+    public InputStream downloadFile(String objectKey) {
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectKey)
+                            .build()
+            );
+        } catch (Exception e) {
+            log.error("Erro ao ler objeto {}: {}", objectKey, e.getMessage());
+            throw new RuntimeException("Erro ao ler arquivo", e);
+        }
+    }
+
+    /**
+     * Lê um trecho do objeto (requisições com Range). Quem chama deve fechar o stream.
+     * @param objectKey caminho do objeto no bucket
+     * @param inicio primeiro byte
+     * @param tamanho quantidade de bytes
+     * @return stream do trecho
+     */
+    public InputStream downloadFile(String objectKey, long inicio, long tamanho) {
+        try {
+            return minioClient.getObject(
+                    GetObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectKey)
+                            .offset(inicio)
+                            .length(tamanho)
+                            .build()
+            );
+        } catch (Exception e) {
+            log.error("Erro ao ler trecho do objeto {}: {}", objectKey, e.getMessage());
+            throw new RuntimeException("Erro ao ler arquivo", e);
+        }
+    }
+
+    /**
+     * Consulta os metadados do objeto (HEAD), sem transferir o conteúdo
+     * @param objectKey caminho do objeto no bucket
+     * @return ETag, tamanho, tipo e data de modificação
+     */
+    public MetadadosObjeto statFile(String objectKey) {
+        try {
+            StatObjectResponse stat = minioClient.statObject(
+                    StatObjectArgs.builder().bucket(bucketName).object(objectKey).build());
+            String etag = stat.etag() != null ? stat.etag().replace("\"", "") : null;
+            String contentType = stat.contentType() != null ? stat.contentType() : "application/octet-stream";
+            return new MetadadosObjeto(objectKey, etag, stat.size(), contentType, stat.lastModified());
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                throw new ResourceNotFoundException("Arquivo não encontrado no storage: " + objectKey);
+            }
+            log.error("Erro ao consultar objeto {}: {}", objectKey, e.getMessage());
+            throw new RuntimeException("Erro ao consultar arquivo", e);
+        } catch (Exception e) {
+            log.error("Erro ao consultar objeto {}: {}", objectKey, e.getMessage());
+            throw new RuntimeException("Erro ao consultar arquivo", e);
+        }
+    }
+
+    /**
+     * Grava uma parte de um upload em partes. Cada parte é um objeto temporário
+     * em uploads/, então o upload pode ser retomado de qualquer réplica.
+     * @param albumId ID do álbum associado
+     * @param uploadId identificador do upload
+     * @param numero número da parte (a partir de 1)
+     * @param inputStream conteúdo da parte
+     * @param tamanho tamanho da parte em bytes, ou -1 se desconhecido
+     */
+    public void uploadParte(Long albumId, String uploadId, int numero, InputStream inputStream, long tamanho) {
+        String objectKey = String.format("%spart-%05d", prefixoUpload(albumId, uploadId), numero);
+        try {
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectKey)
+                            .stream(inputStream, tamanho, uploadPartSize.toBytes())
+                            .build()
+            );
+            log.debug("Parte {} recebida para upload {}", numero, uploadId);
+        } catch (Exception e) {
+            log.error("Erro ao gravar parte {} do upload {}: {}", numero, uploadId, e.getMessage());
+            throw new RuntimeException("Erro ao gravar parte do upload", e);
+        }
+    }
+
+    /**
+     * Lista as partes já recebidas de um upload em partes, em ordem.
+     * @return números das partes recebidas
+     */
+    public List<Integer> listarPartes(Long albumId, String uploadId) {
+        return listarObjetosDoUpload(albumId, uploadId).stream()
+                .map(MinioService::numeroParte)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Junta as partes recebidas num único objeto final (compose no próprio MinIO,
+     * sem trafegar os bytes pela API) e remove as partes temporárias.
+     * As partes precisam ser exatamente 1..N e todas, exceto a última, ter pelo menos
+     * 5MB; caso contrário o upload é recusado sem compor nada. O objeto final não é
+     * endereçado por conteúdo: calcular o hash exigiria ler todas as partes de volta.
+     * @return objeto armazenado, sem hash
+     */
+    public ObjetoArmazenado concluirUploadEmPartes(Long albumId, String uploadId, String nomeArquivo, String contentType) {
+        List<String> partes = listarObjetosDoUpload(albumId, uploadId);
+        if (partes.isEmpty()) {
+            throw new InvalidUploadException("Nenhuma parte recebida para o upload: " + uploadId);
+        }
+        validarPartes(uploadId, partes);
+
+        String objectKey = gerarObjectKey(albumId, nomeArquivo);
+        try {
+            List<ComposeSource> sources = partes.stream()
+                    .map(parte -> ComposeSource.builder().bucket(bucketName).object(parte).build())
+                    .collect(Collectors.toList());
+            minioClient.composeObject(
+                    ComposeObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectKey)
+                            .sources(sources)
+                            .headers(Map.of("Content-Type", contentType))
+                            .build()
+            );
+        } catch (Exception e) {
+            log.error("Erro ao concluir upload {}: {}", uploadId, e.getMessage());
+            throw new RuntimeException("Erro ao concluir upload em partes", e);
+        }
+
+        removerObjetos(partes);
+        log.info("Upload em partes {} concluído ({} partes): {}", uploadId, partes.size(), objectKey);
+        return new ObjetoArmazenado(objectKey, null, true);
+    }
+
+    /**
+     * Descarta as partes de um upload em partes não concluído.
+     */
+    public void cancelarUploadEmPartes(Long albumId, String uploadId) {
+        removerObjetos(listarObjetosDoUpload(albumId, uploadId));
+        log.info("Upload em partes {} cancelado", uploadId);
+    }
+
+    private List<String> listarObjetosDoUpload(Long albumId, String uploadId) {
+        try {
+            List<String> objectKeys = new ArrayList<>();
+            for (Result<Item> result : minioClient.listObjects(
+                    ListObjectsArgs.builder()
+                            .bucket(bucketName)
+                            .prefix(prefixoUpload(albumId, uploadId))
+                            .recursive(true)
+                            .build())) {
+                objectKeys.add(result.get().objectName());
+            }
+            Collections.sort(objectKeys);
+            return objectKeys;
+        } catch (Exception e) {
+            log.error("Erro ao listar partes do upload {}: {}", uploadId, e.getMessage());
+            throw new RuntimeException("Erro ao listar partes do upload", e);
+        }
+    }
+
+    private void removerObjetos(List<String> objectKeys) {
+        if (objectKeys.isEmpty()) {
+            return;
+        }
+        List<DeleteObject> objetos = objectKeys.stream()
+                .map(DeleteObject::new)
+                .collect(Collectors.toList());
+        // removeObjects é preguiçoso: a remoção só acontece ao percorrer o resultado
+        for (Result<DeleteError> result : minioClient.removeObjects(
+                RemoveObjectsArgs.builder().bucket(bucketName).objects(objetos).build())) {
+            try {
+                DeleteError erro = result.get();
+                log.warn("Objeto temporário não removido: {} ({})", erro.objectName(), erro.message());
+            } catch (Exception e) {
+                log.warn("Erro ao remover objetos temporários: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Remove vários objetos numa única chamada ao MinIO.
+     * @param objectKeys caminhos dos objetos no bucket
+     */
+    public void deleteFiles(Collection<String> objectKeys) {
+        List<String> chaves = List.copyOf(objectKeys);
+        removerObjetos(chaves);
+        presignedUrlCache.invalidateAll(chaves);
+        log.info("{} arquivo(s) removido(s)", chaves.size());
+    }
+
+    /**
+     * Confere se o objeto existe (HEAD), sem transferir o conteúdo.
+     */
+    public boolean existeObjeto(String objectKey) {
+        try {
+            return objetoExiste(objectKey);
+        } catch (Exception e) {
+            log.error("Erro ao consultar objeto {}: {}", objectKey, e.getMessage());
+            throw new RuntimeException("Erro ao consultar arquivo", e);
+        }
+    }
+
+    private boolean objetoExiste(String objectKey) throws Exception {
+        try {
+            minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectKey).build());
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private String calcularHash(InputStream inputStream) throws IOException, NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        try (DigestInputStream digestInputStream = new DigestInputStream(inputStream, digest)) {
+            digestInputStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * imagens/{sha256}: o mesmo conteúdo sempre cai na mesma chave, em qualquer álbum.
+     */
+    private String chaveConteudo(String hash) {
+        return "imagens/" + hash;
+    }
+
+    /**
+     * As chaves vêm ordenadas e com o número da parte com 5 dígitos, então a ordem
+     * das chaves é a ordem das partes.
+     */
+    private void validarPartes(String uploadId, List<String> partes) {
+        for (int i = 0; i < partes.size(); i++) {
+            int numero = numeroParte(partes.get(i));
+            if (numero != i + 1) {
+                throw new InvalidUploadException("Parte " + (i + 1) + " não recebida para o upload " + uploadId
+                        + " (" + partes.size() + " partes, a última é a " + numeroParte(partes.get(partes.size() - 1)) + ")");
+            }
+        }
+        for (int i = 0; i < partes.size() - 1; i++) {
+            long tamanho = statFile(partes.get(i)).tamanho();
+            if (tamanho < TAMANHO_MINIMO_PARTE) {
+                throw new InvalidUploadException("Parte " + (i + 1) + " do upload " + uploadId + " tem " + tamanho
+                        + " bytes; todas as partes, exceto a última, precisam ter pelo menos " + TAMANHO_MINIMO_PARTE + " bytes");
+            }
+        }
+    }
+
+    private static int numeroParte(String objectKey) {
+        return Integer.parseInt(objectKey.substring(objectKey.lastIndexOf("part-") + 5));
+    }
+
+    private String prefixoUpload(Long albumId, String uploadId) {
+        return String.format("uploads/album-%d/%s/", albumId, uploadId);
+    }
+
+    private String gerarObjectKey(Long albumId, String nomeArquivo) {
+        String extension = nomeArquivo != null && nomeArquivo.contains(".")
+                ? nomeArquivo.substring(nomeArquivo.lastIndexOf("."))
+                : "";
+
+        return String.format("album-%d/%s%s",
+                albumId,
+                UUID.randomUUID().toString(),
+                extension);
+    }
+
+    /**
+     * Retorna uma URL pré-assinada para acesso ao arquivo, reutilizando a URL em
+     * cache enquanto ela ainda estiver dentro da margem de segurança de validade
      * @param objectKey caminho do objeto no bucket
      * @return URL pré-assinada
      */
     public String getPresignedUrl(String objectKey) {
+        return presignedUrlCache.get(objectKey, this::gerarPresignedUrl);
+    }
+
+    /**
+     * Retorna as URLs pré-assinadas de vários objetos de uma só vez.
+     * Chaves nulas são ignoradas e falhas individuais não interrompem o lote:
+     * o objeto com erro apenas não aparece no mapa retornado.
+     * @param objectKeys caminhos dos objetos no bucket
+     * @return mapa objectKey → URL pré-assinada
+     */
+    public Map<String, String> getPresignedUrls(Collection<String> objectKeys) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        objectKeys.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(objectKey -> {
+                    try {
+                        urls.put(objectKey, getPresignedUrl(objectKey));
+                    } catch (Exception e) {
+                        log.warn("Erro ao gerar URL para imagem: {}", objectKey);
+                    }
+                });
+        return urls;
+    }
+
+    private String gerarPresignedUrl(String objectKey) {
         try {
             String url = minioClient.getPresignedObjectUrl(
                     GetPresignedObjectUrlArgs.builder()
@@ -98,6 +539,7 @@ public class MinioService {
                             .object(objectKey)
                             .build()
             );
+            presignedUrlCache.invalidate(objectKey);
             log.info("Arquivo removido: {}", objectKey);
         } catch (Exception e) {
             log.error("Erro ao remover arquivo: {}", e.getMessage());
@@ -0,0 +1,10 @@
+package br.gov.mt.seplag.artistas.service;
+
+/**
+ * Resultado de um upload para o MinIO.
+ * @param objectKey caminho do objeto no bucket
+ * @param hash SHA-256 do conteúdo em hexadecimal, ou null quando o objeto não é endereçado por conteúdo
+ * @param novo false quando o conteúdo já existia no bucket e o PUT foi evitado
+ */
+public record ObjetoArmazenado(String objectKey, String hash, boolean novo) {
+}
@@ -0,0 +1,41 @@
+package br.gov.mt.seplag.artistas.service;
+
+/**
+ * Avaliação do cabeçalho If-Match contra a versão (@Version) da entidade. O valor
+ * esperado é a versão entre aspas ({@code "3"}), opcionalmente seguida de
+ * {@code -<hash>} como no ETag do álbum ({@code W/"3-9f2c..."}); o prefixo W/ é
+ * aceito para que os ETags devolvidos pelo GET e pelo PUT sirvam.
+ */
+final class Precondicoes {
+
+    private Precondicoes() {
+    }
+
+    static boolean ifMatchAtendido(String ifMatch, Long versao) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return true;
+        }
+        String esperado = String.valueOf(versao);
+        for (String candidato : ifMatch.split(",")) {
+            String valor = candidato.trim();
+            if (valor.equals("*")) {
+                return true;
+            }
+            if (valor.startsWith("W/")) {
+                valor = valor.substring(2);
+            }
+            if (valor.length() < 2 || !valor.startsWith("\"") || !valor.endsWith("\"")) {
+                continue;
+            }
+            valor = valor.substring(1, valor.length() - 1);
+            int separador = valor.indexOf('-');
+            if (separador >= 0) {
+                valor = valor.substring(0, separador);
+            }
+            if (valor.equals(esperado)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
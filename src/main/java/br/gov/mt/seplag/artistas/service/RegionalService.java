@@ -1,20 +1,46 @@
 package br.gov.mt.seplag.artistas.service;
 
+import br.gov.mt.seplag.artistas.config.CacheConfig;
 import br.gov.mt.seplag.artistas.domain.entity.Regional;
 import br.gov.mt.seplag.artistas.dto.RegionalDTO;
 import br.gov.mt.seplag.artistas.dto.RegionalExternaDTO;
+import br.gov.mt.seplag.artistas.exception.PayloadInvalidoException;
+import br.gov.mt.seplag.artistas.exception.SyncInProgressException;
 import br.gov.mt.seplag.artistas.repository.RegionalRepository;
+import br.gov.mt.seplag.artistas.repository.RegionalSyncRepository;
+import br.gov.mt.seplag.artistas.repository.RegionalSyncRepository.Fingerprint;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,8 +48,17 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RegionalService {
 
+    // Regionais enviadas ao staging por vez (um INSERT multi-valores por lote)
+    private static final int LOTE_STAGING = 1000;
+
     private final RegionalRepository regionalRepository;
+    private final RegionalSyncRepository regionalSyncRepository;
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
+    private final Retry regionaisRetry;
+    private final CircuitBreaker regionaisCircuitBreaker;
+    private final CacheInvalidacaoService cacheInvalidacaoService;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${external.regionais-api-url}")
     private String regionaisApiUrl;
@@ -35,6 +70,7 @@ public class RegionalService {
                 .collect(Collectors.toList());
     }
 
+    @Cacheable(cacheNames = CacheConfig.REGIONAIS_ATIVAS)
     @Transactional(readOnly = true)
     public List<RegionalDTO> listarAtivas() {
         return regionalRepository.findByAtivoTrue().stream()
@@ -47,90 +83,197 @@ public class RegionalService {
      * 1) Novo no endpoint → inserir
      * 2) Ausente no endpoint → inativar
      * 3) Atributo alterado → inativar antigo e criar novo registro
+     * A requisição é condicional (ETag/Last-Modified da última sincronização). O corpo
+     * é copiado para um arquivo temporário enquanto o SHA-256 é calculado; se o hash é
+     * igual ao do último payload aplicado, retorna sem fazer o parse nem criar o staging.
+     * Havendo mudança, o arquivo é lido em streaming e carregado em lotes numa tabela de
+     * staging, e as regras viram poucos comandos em conjunto: a memória usada não depende
+     * do número de regionais e só as regionais com hash diferente são alteradas.
+     * Entre réplicas, só quem obtém o advisory lock da transação sincroniza.
+     * <p>
+     * A chamada HTTP (com retry e backoff) roda fora de transação, sem prender conexão
+     * do banco nem o lock; a transação só é aberta para aplicar o payload já baixado.
      */
-    @Transactional
     public SyncResult sincronizarComApiExterna() {
         log.info("Iniciando sincronização com API externa: {}", regionaisApiUrl);
 
-        List<RegionalExternaDTO> regionaisExternas;
+        // Verificação antecipada, para não baixar o payload à toa; o lock que vale é o da aplicação
+        if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> regionalSyncRepository.tentarLockSincronizacao()))) {
+            throw new SyncInProgressException("Sincronização de regionais em andamento em outra instância");
+        }
+
+        Optional<Fingerprint> anterior = regionalSyncRepository.buscarFingerprint(regionaisApiUrl);
+
+        // Retry (backoff exponencial com jitter) por fora do circuit breaker: cada tentativa conta no breaker
+        Supplier<PayloadBaixado> chamada = Retry.decorateSupplier(regionaisRetry,
+                CircuitBreaker.decorateSupplier(regionaisCircuitBreaker, () -> restTemplate.execute(
+                        regionaisApiUrl,
+                        HttpMethod.GET,
+                        request -> request.getHeaders().addAll(cabecalhosCondicionais(anterior)),
+                        this::baixarPayload
+                )));
+
+        PayloadBaixado payload;
         try {
-            ResponseEntity<List<RegionalExternaDTO>> response = restTemplate.exchange(
-                    regionaisApiUrl,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<RegionalExternaDTO>>() {}
-            );
-            regionaisExternas = response.getBody();
-
-            if (regionaisExternas == null) {
-                regionaisExternas = new ArrayList<>();
-            }
+            payload = chamada.get();
         } catch (Exception e) {
             log.error("Erro ao buscar regionais da API externa: {}", e.getMessage());
             throw new RuntimeException("Erro ao sincronizar com API externa", e);
         }
 
-        List<Regional> regionaisAtivas = regionalRepository.findAllByAtivoTrue();
-
-        // Mapear regionais ativas por idExterno
-        Map<Integer, Regional> regionaisAtivasMap = regionaisAtivas.stream()
-                .collect(Collectors.toMap(Regional::getIdExterno, r -> r, (a, b) -> a));
-
-        // Mapear regionais externas por id
-        Set<Integer> idsExternos = regionaisExternas.stream()
-                .map(RegionalExternaDTO::getId)
-                .collect(Collectors.toSet());
-
-        int inseridos = 0;
-        int inativados = 0;
-        int atualizados = 0;
-
-        // Processar regionais da API externa
-        for (RegionalExternaDTO externa : regionaisExternas) {
-            Regional existente = regionaisAtivasMap.get(externa.getId());
-
-            if (existente == null) {
-                // Regra 1: Novo no endpoint → inserir
-                Regional nova = Regional.builder()
-                        .idExterno(externa.getId())
-                        .nome(externa.getNome())
-                        .ativo(true)
-                        .build();
-                regionalRepository.save(nova);
-                inseridos++;
-                log.info("Regional inserida: id_externo={}, nome={}", externa.getId(), externa.getNome());
-            } else if (!existente.getNome().equals(externa.getNome())) {
-                // Regra 3: Atributo alterado → inativar antigo e criar novo registro
-                existente.setAtivo(false);
-                regionalRepository.save(existente);
-
-                Regional nova = Regional.builder()
-                        .idExterno(externa.getId())
-                        .nome(externa.getNome())
-                        .ativo(true)
-                        .build();
-                regionalRepository.save(nova);
-                atualizados++;
-                log.info("Regional atualizada (inativada antiga e criada nova): id_externo={}, nome_antigo={}, nome_novo={}",
-                        externa.getId(), existente.getNome(), externa.getNome());
-            }
+        if (payload == null) {
+            log.info("Sincronização ignorada: API externa respondeu 304 (sem alterações)");
+            return SyncResult.nenhumaAlteracao();
+        }
+
+        try {
+            return transactionTemplate.execute(status -> aplicar(payload));
+        } finally {
+            apagar(payload.arquivo());
+        }
+    }
+
+    /**
+     * Roda na transação da sincronização, sob o advisory lock. A impressão é relida
+     * aqui: outra réplica pode ter aplicado o mesmo payload durante o download.
+     */
+    private SyncResult aplicar(PayloadBaixado baixado) {
+        if (!regionalSyncRepository.tentarLockSincronizacao()) {
+            throw new SyncInProgressException("Sincronização de regionais em andamento em outra instância");
+        }
+
+        Fingerprint fingerprint = baixado.fingerprint();
+        Optional<Fingerprint> anterior = regionalSyncRepository.buscarFingerprint(regionaisApiUrl);
+        regionalSyncRepository.salvarFingerprint(regionaisApiUrl, fingerprint);
+
+        if (anterior.map(Fingerprint::hashPayload).filter(fingerprint.hashPayload()::equals).isPresent()) {
+            log.info("Sincronização ignorada: payload idêntico ao da última sincronização");
+            return SyncResult.nenhumaAlteracao();
+        }
+
+        PayloadCarregado payload;
+        try {
+            payload = carregarStaging(baixado.arquivo());
+        } catch (IOException e) {
+            log.error("Payload inválido da API externa: {}", e.getMessage());
+            throw new PayloadInvalidoException("Erro ao sincronizar com API externa: payload inválido", e);
+        }
+
+        if (payload.ignoradas() > 0) {
+            log.warn("{} regional(is) sem id ignorada(s) na sincronização", payload.ignoradas());
+        }
+
+        // Regras aplicadas em conjunto: 3 comandos, independente do número de regionais
+        int atualizados = regionalSyncRepository.inativarAlteradas();
+        int inativados = regionalSyncRepository.inativarAusentes();
+        int inseridos = regionalSyncRepository.inserirNovas() - atualizados;
+
+        if (inseridos + atualizados + inativados > 0) {
+            cacheInvalidacaoService.invalidarRegionaisAtivas();
+        }
+
+        log.info("Sincronização concluída: recebidas={}, inseridos={}, atualizados={}, inativados={}",
+                payload.recebidas(), inseridos, atualizados, inativados);
+
+        return new SyncResult(inseridos, atualizados, inativados, false);
+    }
+
+    /**
+     * Copia o corpo da resposta para um arquivo temporário calculando o SHA-256 na
+     * mesma passada, sem fazer o parse: um payload repetido custa só a cópia.
+     * @return null quando a API responde 304
+     */
+    private PayloadBaixado baixarPayload(ClientHttpResponse response) throws IOException {
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return null;
+        }
+
+        MessageDigest digest = novoDigestSha256();
+        Path arquivo = Files.createTempFile("regionais-", ".json");
+        try (DigestInputStream corpo = new DigestInputStream(response.getBody(), digest)) {
+            Files.copy(corpo, arquivo, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            apagar(arquivo);
+            throw e;
         }
 
-        // Regra 2: Ausente no endpoint → inativar
-        for (Regional regional : regionaisAtivas) {
-            if (!idsExternos.contains(regional.getIdExterno())) {
-                regional.setAtivo(false);
-                regionalRepository.save(regional);
-                inativados++;
-                log.info("Regional inativada (ausente na API): id_externo={}, nome={}",
-                        regional.getIdExterno(), regional.getNome());
+        Fingerprint fingerprint = new Fingerprint(
+                response.getHeaders().getETag(),
+                response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED),
+                HexFormat.of().formatHex(digest.digest())
+        );
+        return new PayloadBaixado(fingerprint, arquivo);
+    }
+
+    /**
+     * Lê o array JSON do payload com o parser de streaming do Jackson, enviando as
+     * regionais ao staging a cada {@value #LOTE_STAGING}.
+     */
+    private PayloadCarregado carregarStaging(Path arquivo) throws IOException {
+        regionalSyncRepository.criarStaging();
+
+        int recebidas = 0;
+        int ignoradas = 0;
+        try (InputStream corpo = Files.newInputStream(arquivo);
+             JsonParser parser = objectMapper.getFactory().createParser(corpo)) {
+            JsonToken token = parser.nextToken();
+            if (token != null) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(parser, "Payload da API externa não é um array JSON");
+                }
+
+                List<RegionalExternaDTO> lote = new ArrayList<>(LOTE_STAGING);
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    RegionalExternaDTO regional = objectMapper.readValue(parser, RegionalExternaDTO.class);
+                    recebidas++;
+                    if (regional.getId() == null) {
+                        ignoradas++;
+                        continue;
+                    }
+                    lote.add(regional);
+                    if (lote.size() == LOTE_STAGING) {
+                        regionalSyncRepository.inserirStaging(lote);
+                        lote = new ArrayList<>(LOTE_STAGING);
+                    }
+                }
+                if (parser.currentToken() != JsonToken.END_ARRAY) {
+                    throw new JsonParseException(parser, "Elemento inesperado no payload da API externa");
+                }
+                if (!lote.isEmpty()) {
+                    regionalSyncRepository.inserirStaging(lote);
+                }
             }
         }
+        return new PayloadCarregado(recebidas, ignoradas);
+    }
+
+    private static void apagar(Path arquivo) {
+        try {
+            Files.deleteIfExists(arquivo);
+        } catch (IOException e) {
+            log.warn("Arquivo temporário {} não pôde ser apagado: {}", arquivo, e.getMessage());
+        }
+    }
 
-        log.info("Sincronização concluída: inseridos={}, atualizados={}, inativados={}",
-                inseridos, atualizados, inativados);
+    private HttpHeaders cabecalhosCondicionais(Optional<Fingerprint> anterior) {
+        HttpHeaders headers = new HttpHeaders();
+        anterior.ifPresent(fingerprint -> {
+            if (fingerprint.etag() != null) {
+                headers.setIfNoneMatch(fingerprint.etag());
+            }
+            if (fingerprint.lastModified() != null) {
+                headers.set(HttpHeaders.IF_MODIFIED_SINCE, fingerprint.lastModified());
+            }
+        });
+        return headers;
+    }
 
-        return new SyncResult(inseridos, atualizados, inativados);
+    private static MessageDigest novoDigestSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
     }
 
     private RegionalDTO toDTO(Regional regional) {
@@ -142,5 +285,14 @@ public class RegionalService {
                 .build();
     }
 
-    public record SyncResult(int inseridos, int atualizados, int inativados) {}
+    private record PayloadBaixado(Fingerprint fingerprint, Path arquivo) {}
+
+    private record PayloadCarregado(int recebidas, int ignoradas) {}
+
+    public record SyncResult(int inseridos, int atualizados, int inativados, boolean semAlteracoes) {
+
+        static SyncResult nenhumaAlteracao() {
+            return new SyncResult(0, 0, 0, true);
+        }
+    }
 }
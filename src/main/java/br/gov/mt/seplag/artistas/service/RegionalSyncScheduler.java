@@ -0,0 +1,126 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.dto.SincronizacaoStatusDTO;
+import br.gov.mt.seplag.artistas.exception.SyncInProgressException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Executa a sincronização de regionais em segundo plano, agendada e sob demanda.
+ * <p>
+ * Dentro da JVM há no máximo uma execução por vez (single-flight): quem dispara
+ * com uma sincronização em andamento recebe o mesmo future. Entre réplicas, a
+ * exclusão fica com o advisory lock obtido em {@link RegionalService#sincronizarComApiExterna()}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RegionalSyncScheduler {
+
+    private final RegionalService regionalService;
+
+    @Qualifier("regionalSyncExecutor")
+    private final ExecutorService regionalSyncExecutor;
+
+    private final AtomicReference<CompletableFuture<RegionalService.SyncResult>> emAndamento = new AtomicReference<>();
+
+    private volatile LocalDateTime iniciadaEm;
+    private volatile LocalDateTime concluidaEm;
+    private volatile RegionalService.SyncResult ultimoResultado;
+    private volatile String ultimoErro;
+
+    @Scheduled(cron = "${external.regionais-sync-cron:0 0 * * * *}")
+    public void sincronizarAgendado() {
+        log.info("Sincronização agendada de regionais disparada");
+        disparar().whenComplete((resultado, erro) -> {
+            Throwable causa = erro instanceof CompletionException ? erro.getCause() : erro;
+            if (causa instanceof SyncInProgressException) {
+                log.info("Sincronização agendada ignorada: {}", causa.getMessage());
+            } else if (causa != null) {
+                log.error("Falha na sincronização agendada de regionais: {}", causa.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Inicia a sincronização ou, se já houver uma em andamento, devolve o future dela.
+     */
+    public CompletableFuture<RegionalService.SyncResult> disparar() {
+        CompletableFuture<RegionalService.SyncResult> novo = new CompletableFuture<>();
+        CompletableFuture<RegionalService.SyncResult> atual = emAndamento.compareAndExchange(null, novo);
+        if (atual != null) {
+            log.debug("Sincronização de regionais já em andamento, reaproveitando a execução");
+            return atual;
+        }
+
+        iniciadaEm = LocalDateTime.now();
+        try {
+            regionalSyncExecutor.execute(() -> executar(novo));
+        } catch (RejectedExecutionException e) {
+            emAndamento.set(null);
+            novo.completeExceptionally(e);
+        }
+        return novo;
+    }
+
+    /**
+     * Dispara (ou reaproveita) a sincronização e aguarda o resultado.
+     */
+    public RegionalService.SyncResult sincronizar() {
+        try {
+            return disparar().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    public SincronizacaoStatusDTO status() {
+        RegionalService.SyncResult resultado = ultimoResultado;
+        return SincronizacaoStatusDTO.builder()
+                .emAndamento(emAndamento.get() != null)
+                .iniciadaEm(iniciadaEm)
+                .concluidaEm(concluidaEm)
+                .inseridos(resultado != null ? resultado.inseridos() : null)
+                .atualizados(resultado != null ? resultado.atualizados() : null)
+                .inativados(resultado != null ? resultado.inativados() : null)
+                .semAlteracoes(resultado != null ? resultado.semAlteracoes() : null)
+                .erro(ultimoErro)
+                .build();
+    }
+
+    private void executar(CompletableFuture<RegionalService.SyncResult> future) {
+        RegionalService.SyncResult resultado = null;
+        Throwable falha = null;
+        try {
+            resultado = regionalService.sincronizarComApiExterna();
+            ultimoResultado = resultado;
+            ultimoErro = null;
+        } catch (Throwable e) {
+            falha = e;
+            ultimoErro = e.getMessage();
+        } finally {
+            concluidaEm = LocalDateTime.now();
+            // Libera antes de completar: quem chegar depois já inicia uma nova execução
+            emAndamento.set(null);
+        }
+
+        if (falha != null) {
+            future.completeExceptionally(falha);
+        } else {
+            future.complete(resultado);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.domain.entity.AlbumImagem;
+import br.gov.mt.seplag.artistas.repository.AlbumImagemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Gera miniaturas JPEG de tamanho fixo para as imagens de capa, gravadas no MinIO
+ * na pasta thumbs/ ao lado do original. A geração é assíncrona, num pool limitado, para não
+ * aumentar a latência do upload.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailService {
+
+    private static final String CONTENT_TYPE = "image/jpeg";
+    private static final float QUALIDADE_JPEG = 0.85f;
+
+    private final MinioService minioService;
+    private final AlbumImagemRepository albumImagemRepository;
+    private final CacheInvalidacaoService cacheInvalidacaoService;
+
+    @Qualifier("thumbnailExecutor")
+    private final ExecutorService thumbnailExecutor;
+
+    @Value("${minio.thumbnails.tamanhos:150,600}")
+    private List<Integer> tamanhos;
+
+    @Value("${minio.thumbnails.max-pixels:25000000}")
+    private long maxPixels;
+
+    /**
+     * Agenda a geração das miniaturas das imagens informadas. Retorna imediatamente;
+     * se a fila estiver cheia, a imagem segue sem miniaturas. Imagens cujo conteúdo
+     * já tem miniaturas (upload duplicado) são ignoradas.
+     */
+    public void gerarMiniaturasAsync(Collection<AlbumImagem> imagens) {
+        imagens.stream()
+                .filter(imagem -> !imagem.isMiniaturasGeradas())
+                .map(AlbumImagem::getObjectKey)
+                .distinct()
+                .forEach(objectKey -> {
+                    try {
+                        thumbnailExecutor.execute(() -> gerarMiniaturas(objectKey));
+                    } catch (RejectedExecutionException e) {
+                        log.warn("Fila de miniaturas cheia, {} ficará sem miniaturas", objectKey);
+                    }
+                });
+    }
+
+    void gerarMiniaturas(String objectKey) {
+        try {
+            BufferedImage original;
+            try (InputStream inputStream = minioService.downloadFile(objectKey)) {
+                original = ler(inputStream, objectKey);
+            }
+            if (original == null) {
+                return;
+            }
+
+            for (Integer tamanho : tamanhos) {
+                byte[] jpeg = paraJpeg(redimensionar(original, tamanho));
+                minioService.uploadBytes(chaveMiniatura(objectKey, tamanho), jpeg, CONTENT_TYPE);
+            }
+            albumImagemRepository.marcarMiniaturasGeradas(objectKey);
+            // Os álbuns em cache ainda não listam as miniaturas
+            cacheInvalidacaoService.invalidarAlbuns(albumImagemRepository.findAlbumIdsByObjectKey(objectKey));
+            log.debug("Miniaturas geradas para {}: {}", objectKey, tamanhos);
+        } catch (Exception e) {
+            log.error("Erro ao gerar miniaturas de {}: {}", objectKey, e.getMessage());
+        }
+    }
+
+    /**
+     * Decodifica a imagem só depois de ler as dimensões do cabeçalho: um arquivo
+     * pequeno e muito comprimido pode declarar dimensões que exigiriam gigabytes
+     * ao ser decodificado. Retorna null (sem miniaturas) para formato não suportado
+     * ou imagem acima de max-pixels.
+     */
+    private BufferedImage ler(InputStream inputStream, String objectKey) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> leitores = entrada != null ? ImageIO.getImageReaders(entrada) : Collections.emptyIterator();
+            if (!leitores.hasNext()) {
+                log.warn("Formato de imagem não suportado para miniaturas: {}", objectKey);
+                return null;
+            }
+            ImageReader leitor = leitores.next();
+            try {
+                leitor.setInput(entrada, true, true);
+                long pixels = (long) leitor.getWidth(0) * leitor.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Imagem {} com {}x{} pixels acima do limite de {} pixels, ficará sem miniaturas",
+                            objectKey, leitor.getWidth(0), leitor.getHeight(0), maxPixels);
+                    return null;
+                }
+                return leitor.read(0);
+            } finally {
+                leitor.dispose();
+            }
+        }
+    }
+
+    /**
+     * Chaves das miniaturas de uma imagem, vazias enquanto ainda não foram geradas.
+     */
+    public List<String> chavesMiniaturas(AlbumImagem imagem) {
+        if (!imagem.isMiniaturasGeradas()) {
+            return List.of();
+        }
+        return tamanhos.stream()
+                .map(tamanho -> chaveMiniatura(imagem.getObjectKey(), tamanho))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * URLs das miniaturas por tamanho, a partir das URLs já geradas em lote.
+     */
+    public Map<Integer, String> urlsMiniaturas(AlbumImagem imagem, Map<String, String> urls) {
+        Map<Integer, String> miniaturas = new LinkedHashMap<>();
+        if (imagem.isMiniaturasGeradas()) {
+            for (Integer tamanho : tamanhos) {
+                String url = urls.get(chaveMiniatura(imagem.getObjectKey(), tamanho));
+                if (url != null) {
+                    miniaturas.put(tamanho, url);
+                }
+            }
+        }
+        return miniaturas;
+    }
+
+    /**
+     * imagens/{sha256} → imagens/thumbs/{sha256}-150.jpg (album-1/abc.png → album-1/thumbs/abc-150.jpg)
+     */
+    static String chaveMiniatura(String objectKey, int tamanho) {
+        int barra = objectKey.lastIndexOf('/');
+        String pasta = objectKey.substring(0, barra + 1);
+        String nome = objectKey.substring(barra + 1);
+        int ponto = nome.lastIndexOf('.');
+        String base = ponto > 0 ? nome.substring(0, ponto) : nome;
+        return pasta + "thumbs/" + base + "-" + tamanho + ".jpg";
+    }
+
+    /**
+     * Reduz a imagem para caber em tamanho x tamanho, mantendo a proporção.
+     * Imagens menores não são ampliadas.
+     */
+    static BufferedImage redimensionar(BufferedImage original, int tamanho) {
+        double escala = Math.min(1.0, (double) tamanho / Math.max(original.getWidth(), original.getHeight()));
+        int largura = Math.max(1, (int) Math.round(original.getWidth() * escala));
+        int altura = Math.max(1, (int) Math.round(original.getHeight() * escala));
+
+        // JPEG não tem canal alfa: desenha sobre fundo RGB
+        BufferedImage destino = new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = destino.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(original, 0, 0, largura, altura, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return destino;
+    }
+
+    private byte[] paraJpeg(BufferedImage imagem) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(QUALIDADE_JPEG);
+
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(saida)) {
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(imagem, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return saida.toByteArray();
+    }
+}
@@ -1,21 +1,47 @@
 package br.gov.mt.seplag.artistas.service;
 
 import br.gov.mt.seplag.artistas.repository.UsuarioRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
 @RequiredArgsConstructor
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UsuarioRepository usuarioRepository;
 
+    @Value("${security.user-cache.ttl:30s}")
+    private Duration userCacheTtl;
+
+    @Value("${security.user-cache.max-size:1000}")
+    private long userCacheMaxSize;
+
+    private Cache<String, UserDetails> usuariosCache;
+
+    /**
+     * Cache de curta duração dos usuários: limita a uma consulta por usuário a cada
+     * TTL, e um usuário desabilitado perde o acesso em no máximo esse intervalo.
+     */
+    @PostConstruct
+    void init() {
+        usuariosCache = Caffeine.newBuilder()
+                .maximumSize(userCacheMaxSize)
+                .expireAfterWrite(userCacheTtl)
+                .build();
+    }
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return usuarioRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + username));
+        return usuariosCache.get(username, chave -> usuarioRepository.findByUsername(chave)
+                .orElseThrow(() -> new UsernameNotFoundException("Usuário não encontrado: " + chave)));
     }
 }
@@ -0,0 +1,19 @@
+-- V10__create_regional_fingerprint.sql
+-- Detecção incremental de mudanças na sincronização de regionais.
+-- regional_sincronizacao guarda a impressão do último payload aplicado por fonte
+-- (ETag/Last-Modified da API externa e SHA-256 do corpo): se nada mudou, a
+-- sincronização termina sem tocar na tabela regional.
+-- hash_conteudo guarda o hash dos atributos de cada regional, e as regras de
+-- alteração comparam só os hashes.
+
+CREATE TABLE regional_sincronizacao (
+    fonte VARCHAR(500) PRIMARY KEY,
+    etag VARCHAR(255),
+    last_modified VARCHAR(100),
+    hash_payload VARCHAR(64) NOT NULL,
+    sincronizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE regional ADD COLUMN hash_conteudo VARCHAR(32);
+
+UPDATE regional SET hash_conteudo = md5(COALESCE(nome, ''));
@@ -0,0 +1,10 @@
+-- V11__add_versao_album_artista.sql
+-- Versão (lock otimista do Hibernate) e data da última alteração de álbuns e
+-- artistas. Os ETags do detalhe são calculados a partir dessas colunas, sem
+-- carregar os relacionamentos.
+
+ALTER TABLE album ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE album ADD COLUMN atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+ALTER TABLE artista ADD COLUMN versao BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE artista ADD COLUMN atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
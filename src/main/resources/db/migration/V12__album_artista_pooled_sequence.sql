@@ -0,0 +1,8 @@
+-- V12__album_artista_pooled_sequence.sql
+-- Album e Artista passam a usar sequence com allocationSize = 50 (otimizador pooled
+-- do Hibernate), como AlbumImagem em V6: os INSERTs entram em lote JDBC e a
+-- importação em massa reserva blocos de IDs com um nextval a cada 50 registros.
+-- O incremento da sequence precisa ser igual ao allocationSize.
+
+ALTER SEQUENCE artista_id_seq INCREMENT BY 50;
+ALTER SEQUENCE album_id_seq INCREMENT BY 50;
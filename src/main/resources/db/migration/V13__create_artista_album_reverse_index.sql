@@ -0,0 +1,55 @@
+-- V13__create_artista_album_reverse_index.sql
+-- Busca dos álbuns de um artista e contagem desnormalizada.
+--
+-- A PK (artista_id, album_id) já cobre artista -> álbuns. O índice inverso cobre
+-- álbum -> artistas (montagem do DTO, versão do álbum, exportação), que hoje
+-- varria a tabela. album_imagem também não tinha índice por album_id.
+--
+-- artista.quantidade_albuns é mantida por triggers por comando (transition tables):
+-- um INSERT multi-valores da importação atualiza cada artista uma vez só. Como a
+-- contagem faz parte da representação do artista, versao e atualizado_em também
+-- avançam, e o ETag/Last-Modified do artista muda junto.
+
+CREATE INDEX idx_artista_album_album_artista ON artista_album(album_id, artista_id);
+CREATE INDEX idx_album_imagem_album_id ON album_imagem(album_id);
+
+ALTER TABLE artista ADD COLUMN quantidade_albuns INTEGER NOT NULL DEFAULT 0;
+
+UPDATE artista a
+SET quantidade_albuns = c.quantidade
+FROM (SELECT artista_id, COUNT(*) AS quantidade FROM artista_album GROUP BY artista_id) c
+WHERE a.id = c.artista_id;
+
+CREATE FUNCTION artista_album_incrementar_quantidade() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE artista a
+    SET quantidade_albuns = a.quantidade_albuns + n.quantidade,
+        versao = a.versao + 1,
+        atualizado_em = CURRENT_TIMESTAMP
+    FROM (SELECT artista_id, COUNT(*) AS quantidade FROM novos GROUP BY artista_id) n
+    WHERE a.id = n.artista_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION artista_album_decrementar_quantidade() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE artista a
+    SET quantidade_albuns = a.quantidade_albuns - r.quantidade,
+        versao = a.versao + 1,
+        atualizado_em = CURRENT_TIMESTAMP
+    FROM (SELECT artista_id, COUNT(*) AS quantidade FROM removidos GROUP BY artista_id) r
+    WHERE a.id = r.artista_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_artista_album_insert
+    AFTER INSERT ON artista_album
+    REFERENCING NEW TABLE AS novos
+    FOR EACH STATEMENT EXECUTE FUNCTION artista_album_incrementar_quantidade();
+
+CREATE TRIGGER trg_artista_album_delete
+    AFTER DELETE ON artista_album
+    REFERENCING OLD TABLE AS removidos
+    FOR EACH STATEMENT EXECUTE FUNCTION artista_album_decrementar_quantidade();
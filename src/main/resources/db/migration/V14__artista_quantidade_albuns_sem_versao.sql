@@ -0,0 +1,28 @@
+-- V14__artista_quantidade_albuns_sem_versao.sql
+-- Os triggers de V13 avançavam artista.versao a cada vínculo criado ou removido:
+-- editar qualquer álbum fazia um PUT de artista com If-Match/versão válidos
+-- receber 412/409. versao volta a mudar só com edições do próprio artista; a
+-- contagem entra no ETag do artista (versao-quantidade_albuns), e atualizado_em
+-- continua avançando para o Last-Modified.
+
+CREATE OR REPLACE FUNCTION artista_album_incrementar_quantidade() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE artista a
+    SET quantidade_albuns = a.quantidade_albuns + n.quantidade,
+        atualizado_em = CURRENT_TIMESTAMP
+    FROM (SELECT artista_id, COUNT(*) AS quantidade FROM novos GROUP BY artista_id) n
+    WHERE a.id = n.artista_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION artista_album_decrementar_quantidade() RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE artista a
+    SET quantidade_albuns = a.quantidade_albuns - r.quantidade,
+        atualizado_em = CURRENT_TIMESTAMP
+    FROM (SELECT artista_id, COUNT(*) AS quantidade FROM removidos GROUP BY artista_id) r
+    WHERE a.id = r.artista_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
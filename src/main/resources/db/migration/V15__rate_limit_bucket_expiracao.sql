@@ -0,0 +1,20 @@
+-- V15__rate_limit_bucket_expiracao.sql
+-- As chaves de rate_limit_bucket vêm do cliente (usuário/IP), então a tabela
+-- precisa de expiração. atualizado_em marca a última escrita do Bucket4j (o
+-- proxy manager não conhece a coluna: o default cobre o INSERT e o trigger, o
+-- UPDATE) e o RateLimitBucketExpiracao remove periodicamente os buckets ociosos.
+
+ALTER TABLE rate_limit_bucket ADD COLUMN atualizado_em TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+
+CREATE INDEX idx_rate_limit_bucket_atualizado_em ON rate_limit_bucket(atualizado_em);
+
+CREATE FUNCTION rate_limit_bucket_tocar() RETURNS TRIGGER AS $$
+BEGIN
+    NEW.atualizado_em = CURRENT_TIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_rate_limit_bucket_update
+    BEFORE UPDATE ON rate_limit_bucket
+    FOR EACH ROW EXECUTE FUNCTION rate_limit_bucket_tocar();
@@ -0,0 +1,11 @@
+-- V3__create_keyset_indexes.sql
+-- Índices compostos para a paginação por cursor (keyset) de álbuns e artistas.
+-- A ordenação é sempre (chave, id), então o índice atende tanto o ORDER BY
+-- quanto a busca a partir da posição do cursor, sem OFFSET e sem COUNT(*).
+
+CREATE INDEX idx_album_titulo_id ON album(titulo, id);
+CREATE INDEX idx_artista_nome_id ON artista(nome, id);
+
+-- Os índices simples passam a ser redundantes (são prefixo dos compostos)
+DROP INDEX IF EXISTS idx_album_titulo;
+DROP INDEX IF EXISTS idx_artista_nome;
@@ -0,0 +1,10 @@
+-- V4__create_trigram_search_indexes.sql
+-- Busca por trecho de nome (LIKE '%termo%') em artista.nome e album.titulo.
+-- Índices B-tree não atendem LIKE com curinga no início; os índices GIN com
+-- pg_trgm sobre LOWER(coluna) atendem tanto o LIKE quanto o operador de
+-- similaridade (%) usado na busca por relevância.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_artista_nome_trgm ON artista USING gin (LOWER(nome) gin_trgm_ops);
+CREATE INDEX idx_album_titulo_trgm ON album USING gin (LOWER(titulo) gin_trgm_ops);
@@ -0,0 +1,9 @@
+-- V5__create_rate_limit_bucket.sql
+-- Estado dos buckets do rate limit distribuído (rate-limit.backend=postgres).
+-- Cada linha guarda o estado serializado do Bucket4j de uma chave (user:... ou ip:...),
+-- compartilhado por todas as réplicas da API.
+
+CREATE TABLE rate_limit_bucket (
+    id VARCHAR(255) PRIMARY KEY,
+    state BYTEA
+);
@@ -0,0 +1,6 @@
+-- V6__album_imagem_pooled_sequence.sql
+-- A entidade AlbumImagem passa a usar sequence com allocationSize = 50 (otimizador
+-- pooled do Hibernate), o que permite inserir as imagens de um upload em lote JDBC.
+-- O incremento da sequence precisa ser igual ao allocationSize.
+
+ALTER SEQUENCE album_imagem_id_seq INCREMENT BY 50;
@@ -0,0 +1,5 @@
+-- V7__add_album_imagem_miniaturas.sql
+-- Indica se as miniaturas (thumbnails) da imagem já foram geradas e gravadas
+-- no MinIO. Enquanto for FALSE, a API devolve apenas a URL do original.
+
+ALTER TABLE album_imagem ADD COLUMN miniaturas_geradas BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,9 @@
+-- V8__add_album_imagem_hash_conteudo.sql
+-- Deduplicação por conteúdo: cada imagem é armazenada no MinIO uma única vez,
+-- na chave imagens/{sha256}. As linhas de album_imagem com o mesmo hash são as
+-- referências ao objeto, que só é removido quando a última delas é apagada.
+-- Imagens antigas (chave album-{id}/{uuid}) ficam com hash nulo.
+
+ALTER TABLE album_imagem ADD COLUMN hash_conteudo VARCHAR(64);
+
+CREATE INDEX idx_album_imagem_hash_conteudo ON album_imagem(hash_conteudo);
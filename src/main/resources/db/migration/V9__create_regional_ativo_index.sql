@@ -0,0 +1,8 @@
+-- V9__create_regional_ativo_index.sql
+-- A sincronização em conjunto procura, para cada id_externo do payload, a versão
+-- ativa da regional. O índice parcial cobre só as linhas ativas (as inativas
+-- acumulam a cada alteração de nome) e substitui o índice simples em ativo.
+
+CREATE INDEX idx_regional_id_externo_ativo ON regional(id_externo) WHERE ativo = TRUE;
+
+DROP INDEX IF EXISTS idx_regional_ativo;
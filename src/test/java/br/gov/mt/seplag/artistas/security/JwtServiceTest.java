@@ -1,12 +1,15 @@
 package br.gov.mt.seplag.artistas.security;
 
 import br.gov.mt.seplag.artistas.domain.entity.Usuario;
+import io.jsonwebtoken.Claims;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.*;
@@ -26,6 +29,8 @@ class JwtServiceTest {
                 "dGVzdC1zZWNyZXQta2V5LWZvci1qd3QtdG9rZW4tMjU2LWJpdHMtbWluaW1vLWZvci10ZXN0aW5n");
         ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", 300000L); // 5 minutos
         ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", 1800000L); // 30 minutos
+        ReflectionTestUtils.setField(jwtService, "claimsCacheMaxSize", 100L);
+        jwtService.init();
 
         usuario = Usuario.builder()
                 .id(1L)
@@ -128,4 +133,60 @@ class JwtServiceTest {
 
         assertThat(jwtService.isRefreshToken(accessToken)).isFalse();
     }
+
+    @Test
+    @DisplayName("Deve retornar claims de token válido")
+    void deveRetornarClaimsDeTokenValido() {
+        String token = jwtService.generateAccessToken(usuario);
+
+        assertThat(jwtService.parseToken(token))
+                .hasValueSatisfying(claims -> assertThat(claims.getSubject()).isEqualTo("admin"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar vazio para token inválido ou adulterado")
+    void deveRetornarVazioParaTokenAdulterado() {
+        String token = jwtService.generateAccessToken(usuario);
+        String[] partes = token.split("\\.");
+        char trocado = partes[2].charAt(0) == 'A' ? 'B' : 'A';
+        String adulterado = partes[0] + "." + partes[1] + "." + trocado + partes[2].substring(1);
+
+        assertThat(jwtService.parseToken("invalid.token.here")).isEmpty();
+        assertThat(jwtService.parseToken(adulterado)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar claims em cache para o mesmo token")
+    void deveReutilizarClaimsEmCache() {
+        String token = jwtService.generateAccessToken(usuario);
+
+        Claims primeira = jwtService.parseToken(token).orElseThrow();
+        Claims segunda = jwtService.parseToken(token).orElseThrow();
+
+        assertThat(segunda).isSameAs(primeira);
+    }
+
+    @Test
+    @DisplayName("Access token deve carregar authorities para autenticação sem estado")
+    void accessTokenDeveCarregarAuthorities() {
+        String token = jwtService.generateAccessToken(usuario);
+        Claims claims = jwtService.parseToken(token).orElseThrow();
+
+        assertThat(jwtService.hasUserClaims(claims)).isTrue();
+
+        UserDetails userDetails = jwtService.toUserDetails(claims);
+
+        assertThat(userDetails.getUsername()).isEqualTo("admin");
+        assertThat(userDetails.isEnabled()).isTrue();
+        assertThat(userDetails.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+    }
+
+    @Test
+    @DisplayName("Refresh token não deve carregar authorities")
+    void refreshTokenNaoDeveCarregarAuthorities() {
+        String token = jwtService.generateRefreshToken(usuario);
+
+        assertThat(jwtService.hasUserClaims(jwtService.parseToken(token).orElseThrow())).isFalse();
+    }
 }
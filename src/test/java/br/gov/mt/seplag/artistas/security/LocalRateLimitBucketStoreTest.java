@@ -0,0 +1,98 @@
+package br.gov.mt.seplag.artistas.security;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LocalRateLimitBucketStoreTest {
+
+    // Só no benchmark (mvn test -Dgroups=benchmark -DexcludedGroups=); 10 milhões: -Drate-limit.benchmark.chaves=10000000
+    private static final int CHAVES_BENCHMARK = Integer.getInteger("rate-limit.benchmark.chaves", 1_000_000);
+    private static final long MAX_SIZE = 10_000;
+
+    private final AtomicLong relogio = new AtomicLong();
+    private BucketConfiguration configuracao;
+
+    @BeforeEach
+    void setUp() {
+        configuracao = BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(10, Refill.greedy(10, Duration.ofMinutes(1))))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o mesmo bucket para a mesma chave")
+    void deveReutilizarBucketDaMesmaChave() {
+        LocalRateLimitBucketStore store = new LocalRateLimitBucketStore(MAX_SIZE, Duration.ofMinutes(1), relogio::get);
+
+        Bucket primeiro = store.resolveBucket("user:admin", () -> configuracao);
+        primeiro.tryConsume(10);
+        Bucket segundo = store.resolveBucket("user:admin", () -> configuracao);
+
+        assertThat(segundo).isSameAs(primeiro);
+        assertThat(segundo.tryConsume(1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve descartar bucket ocioso por mais que o período de recarga")
+    void deveDescartarBucketOcioso() {
+        LocalRateLimitBucketStore store = new LocalRateLimitBucketStore(MAX_SIZE, Duration.ofMinutes(1), relogio::get);
+
+        store.resolveBucket("ip:10.0.0.1", () -> configuracao);
+        relogio.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        assertThat(store.estimatedSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve descartar buckets além do tamanho máximo")
+    void deveLimitarTamanhoMaximo() {
+        LocalRateLimitBucketStore store = new LocalRateLimitBucketStore(100, Duration.ofMinutes(1), relogio::get);
+
+        for (int i = 0; i < 1_000; i++) {
+            store.resolveBucket("ip:" + i, () -> configuracao).tryConsume(1);
+        }
+
+        assertThat(store.estimatedSize()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("Benchmark: tamanho e memória com milhões de chaves distintas")
+    void benchmarkMuitasChaves() {
+        LocalRateLimitBucketStore store = new LocalRateLimitBucketStore(MAX_SIZE, Duration.ofMinutes(1), relogio::get);
+        Runtime runtime = Runtime.getRuntime();
+        long maiorTamanho = 0;
+        long memoriaInicial = usedMemory(runtime);
+
+        for (int i = 0; i < CHAVES_BENCHMARK; i++) {
+            store.resolveBucket("ip:" + i, () -> configuracao).tryConsume(1);
+            if (i % 100_000 == 0) {
+                maiorTamanho = Math.max(maiorTamanho, store.estimatedSize());
+            }
+        }
+
+        long tamanhoFinal = store.estimatedSize();
+        System.out.printf("Rate limit store: chaves=%d, tamanhoFinal=%d, maiorTamanho=%d, memoriaUsadaDelta=%dKB%n",
+                CHAVES_BENCHMARK, tamanhoFinal, maiorTamanho, (usedMemory(runtime) - memoriaInicial) / 1024);
+
+        assertThat(tamanhoFinal).isLessThanOrEqualTo(MAX_SIZE);
+        assertThat(maiorTamanho).isLessThanOrEqualTo(MAX_SIZE);
+    }
+
+    private long usedMemory(Runtime runtime) {
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
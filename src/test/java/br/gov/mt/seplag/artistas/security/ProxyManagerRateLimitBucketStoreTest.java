@@ -0,0 +1,82 @@
+package br.gov.mt.seplag.artistas.security;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.BucketProxy;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimization;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProxyManagerRateLimitBucketStoreTest {
+
+    @Mock
+    private ProxyManager<String> proxyManager;
+
+    @Mock
+    private RemoteBucketBuilder<String> bucketBuilder;
+
+    @Mock
+    private BucketProxy bucketProxy;
+
+    private Optimization optimization;
+    private BucketConfiguration configuracao;
+    private ProxyManagerRateLimitBucketStore store;
+
+    @BeforeEach
+    void setUp() {
+        optimization = Optimizations.delaying(new DelayParameters(2, Duration.ofSeconds(1)));
+        configuracao = BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(10, Refill.greedy(10, Duration.ofMinutes(1))))
+                .build();
+        store = new ProxyManagerRateLimitBucketStore(proxyManager, optimization, 1000, Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Deve criar proxy com a otimização de sincronização em lote")
+    @SuppressWarnings("unchecked")
+    void deveCriarProxyComOtimizacao() {
+        when(proxyManager.builder()).thenReturn(bucketBuilder);
+        when(bucketBuilder.withOptimization(optimization)).thenReturn(bucketBuilder);
+        when(bucketBuilder.build(eq("user:admin"), any(Supplier.class))).thenReturn(bucketProxy);
+
+        Bucket bucket = store.resolveBucket("user:admin", () -> configuracao);
+
+        assertThat(bucket).isSameAs(bucketProxy);
+        verify(bucketBuilder).withOptimization(optimization);
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar o proxy da chave para manter os tokens pré-buscados")
+    @SuppressWarnings("unchecked")
+    void deveReutilizarProxyDaMesmaChave() {
+        when(proxyManager.builder()).thenReturn(bucketBuilder);
+        when(bucketBuilder.withOptimization(optimization)).thenReturn(bucketBuilder);
+        when(bucketBuilder.build(anyString(), any(Supplier.class))).thenReturn(bucketProxy);
+
+        store.resolveBucket("ip:10.0.0.1", () -> configuracao);
+        store.resolveBucket("ip:10.0.0.1", () -> configuracao);
+        store.resolveBucket("ip:10.0.0.2", () -> configuracao);
+
+        verify(proxyManager, times(2)).builder();
+        verify(bucketBuilder).build(eq("ip:10.0.0.1"), any(Supplier.class));
+        verify(bucketBuilder).build(eq("ip:10.0.0.2"), any(Supplier.class));
+    }
+}
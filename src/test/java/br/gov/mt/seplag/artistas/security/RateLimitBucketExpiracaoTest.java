@@ -0,0 +1,52 @@
+package br.gov.mt.seplag.artistas.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitBucketExpiracaoTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private RateLimitBucketExpiracao expiracao;
+
+    @BeforeEach
+    void setUp() {
+        expiracao = new RateLimitBucketExpiracao(jdbcTemplate, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Deve apagar os buckets sem escrita há mais que o TTL")
+    void deveApagarBucketsOciosos() {
+        when(jdbcTemplate.update(anyString(), any(), any())).thenReturn(3);
+
+        long removidos = expiracao.removerOciosos();
+
+        assertThat(removidos).isEqualTo(3);
+        verify(jdbcTemplate).update(RateLimitBucketExpiracao.SQL_REMOVER, 600L, RateLimitBucketExpiracao.LOTE);
+    }
+
+    @Test
+    @DisplayName("Deve repetir a remoção enquanto os lotes vierem cheios")
+    void deveRemoverEmLotes() {
+        when(jdbcTemplate.update(anyString(), any(), any()))
+                .thenReturn(RateLimitBucketExpiracao.LOTE, RateLimitBucketExpiracao.LOTE, 7);
+
+        long removidos = expiracao.removerOciosos();
+
+        assertThat(removidos).isEqualTo(2L * RateLimitBucketExpiracao.LOTE + 7);
+        verify(jdbcTemplate, times(3)).update(anyString(), any(), any());
+    }
+}
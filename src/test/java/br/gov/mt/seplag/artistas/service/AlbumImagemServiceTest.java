@@ -0,0 +1,325 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.domain.entity.Album;
+import br.gov.mt.seplag.artistas.domain.entity.AlbumImagem;
+import br.gov.mt.seplag.artistas.dto.AlbumImagemDTO;
+import br.gov.mt.seplag.artistas.dto.UploadEmPartesDTO;
+import br.gov.mt.seplag.artistas.exception.InvalidUploadException;
+import br.gov.mt.seplag.artistas.exception.ResourceNotFoundException;
+import br.gov.mt.seplag.artistas.repository.AlbumImagemRepository;
+import br.gov.mt.seplag.artistas.repository.AlbumRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AlbumImagemServiceTest {
+
+    @Mock
+    private AlbumImagemRepository albumImagemRepository;
+
+    @Mock
+    private AlbumRepository albumRepository;
+
+    @Mock
+    private MinioService minioService;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CacheInvalidacaoService cacheInvalidacaoService;
+
+    private ExecutorService uploadExecutor;
+    private AlbumImagemService albumImagemService;
+    private Album album;
+    private MultipartFile capa;
+    private MultipartFile contracapa;
+
+    @BeforeEach
+    void setUp() {
+        uploadExecutor = Executors.newFixedThreadPool(2);
+        albumImagemService = new AlbumImagemService(albumImagemRepository, albumRepository, minioService,
+                thumbnailService, transactionTemplate, cacheInvalidacaoService, uploadExecutor);
+
+        album = Album.builder().id(1L).titulo("Harakiri").build();
+        capa = new MockMultipartFile("files", "capa.jpg", "image/jpeg", new byte[]{1, 2, 3});
+        contracapa = new MockMultipartFile("files", "contracapa.png", "image/png", new byte[]{4, 5, 6});
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadExecutor.shutdownNow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void executarTransacaoDireto() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    // A primeira transação (gravação) falha; a limpeza dos órfãos roda na seguinte
+    @SuppressWarnings("unchecked")
+    private void falharGravacao() {
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new DataIntegrityViolationException("falha"))
+                .thenAnswer(invocation -> ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @Test
+    @DisplayName("Deve enviar imagens em paralelo e salvar todas em lote, na ordem dos arquivos")
+    void deveEnviarImagensESalvarEmLote() {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(albumRepository.getReferenceById(1L)).thenReturn(album);
+        when(minioService.uploadFile(capa)).thenReturn(new ObjetoArmazenado("imagens/aaa", "aaa", true));
+        when(minioService.uploadFile(contracapa)).thenReturn(new ObjetoArmazenado("imagens/bbb", "bbb", true));
+        when(albumImagemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(minioService.getPresignedUrls(anyCollection())).thenReturn(Map.of());
+        executarTransacaoDireto();
+
+        List<AlbumImagemDTO> resultado = albumImagemService.uploadImagens(1L, new MultipartFile[]{capa, contracapa});
+
+        assertThat(resultado).extracting(AlbumImagemDTO::getNomeArquivo)
+                .containsExactly("capa.jpg", "contracapa.png");
+        verify(albumImagemRepository, times(1)).saveAll(anyList());
+        verify(albumImagemRepository, never()).save(any(AlbumImagem.class));
+        verify(thumbnailService).gerarMiniaturasAsync(anyList());
+        verify(cacheInvalidacaoService).invalidarAlbum(1L);
+    }
+
+    @Test
+    @DisplayName("Deve remover objetos já enviados quando outro upload falhar")
+    void deveRemoverObjetosQuandoUploadFalhar() {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(minioService.uploadFile(capa)).thenReturn(new ObjetoArmazenado("imagens/aaa", "aaa", true));
+        when(minioService.uploadFile(contracapa)).thenThrow(new RuntimeException("Erro ao fazer upload do arquivo"));
+        executarTransacaoDireto();
+
+        assertThatThrownBy(() -> albumImagemService.uploadImagens(1L, new MultipartFile[]{capa, contracapa}))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Erro ao fazer upload do arquivo");
+
+        verify(minioService).deleteFiles(List.of("imagens/aaa"));
+        verify(albumImagemRepository).lockConteudo("aaa");
+        verify(albumImagemRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Deve remover objetos enviados quando a gravação no banco falhar")
+    void deveRemoverObjetosQuandoGravacaoFalhar() {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(minioService.uploadFile(capa)).thenReturn(new ObjetoArmazenado("imagens/aaa", "aaa", true));
+        falharGravacao();
+
+        assertThatThrownBy(() -> albumImagemService.uploadImagens(1L, new MultipartFile[]{capa}))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(minioService).deleteFiles(List.of("imagens/aaa"));
+    }
+
+    @Test
+    @DisplayName("Não deve remover conteúdo que já existia quando a gravação falhar")
+    void naoDeveRemoverConteudoExistenteQuandoGravacaoFalhar() {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(minioService.uploadFile(capa)).thenReturn(new ObjetoArmazenado("imagens/aaa", "aaa", false));
+        falharGravacao();
+
+        assertThatThrownBy(() -> albumImagemService.uploadImagens(1L, new MultipartFile[]{capa}))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(minioService, never()).deleteFiles(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar conteúdo duplicado e suas miniaturas")
+    @SuppressWarnings("unchecked")
+    void deveReaproveitarConteudoDuplicado() {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(albumRepository.getReferenceById(1L)).thenReturn(album);
+        when(minioService.uploadFile(capa)).thenReturn(new ObjetoArmazenado("imagens/aaa", "aaa", false));
+        when(minioService.existeObjeto("imagens/aaa")).thenReturn(true);
+        when(albumImagemRepository.existsByHashConteudoAndMiniaturasGeradasTrue("aaa")).thenReturn(true);
+        when(albumImagemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(minioService.getPresignedUrls(anyCollection())).thenReturn(Map.of());
+        executarTransacaoDireto();
+
+        albumImagemService.uploadImagens(1L, new MultipartFile[]{capa});
+
+        ArgumentCaptor<List<AlbumImagem>> salvas = ArgumentCaptor.forClass(List.class);
+        verify(albumImagemRepository).saveAll(salvas.capture());
+        assertThat(salvas.getValue().get(0).getHashConteudo()).isEqualTo("aaa");
+        assertThat(salvas.getValue().get(0).isMiniaturasGeradas()).isTrue();
+        verify(albumImagemRepository).lockConteudo("aaa");
+    }
+
+    @Test
+    @DisplayName("Deve recusar gravação quando o conteúdo reaproveitado foi apagado durante o upload")
+    void deveRecusarConteudoApagadoDuranteUpload() {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(minioService.uploadFile(capa)).thenReturn(new ObjetoArmazenado("imagens/aaa", "aaa", false));
+        when(minioService.existeObjeto("imagens/aaa")).thenReturn(false);
+        executarTransacaoDireto();
+
+        assertThatThrownBy(() -> albumImagemService.uploadImagens(1L, new MultipartFile[]{capa}))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+
+        verify(albumImagemRepository, never()).saveAll(anyList());
+        verify(minioService, never()).deleteFiles(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve manter o objeto ao remover imagem cujo conteúdo ainda é referenciado")
+    void deveManterObjetoAindaReferenciado() {
+        AlbumImagem imagem = AlbumImagem.builder().id(5L).album(album).objectKey("imagens/aaa").hashConteudo("aaa").build();
+        when(albumImagemRepository.findByIdAndAlbumId(5L, 1L)).thenReturn(Optional.of(imagem));
+        when(albumImagemRepository.countByHashConteudo("aaa")).thenReturn(1L);
+        executarTransacaoDireto();
+
+        albumImagemService.removerImagem(1L, 5L);
+
+        verify(albumImagemRepository).lockConteudo("aaa");
+        verify(albumImagemRepository).delete(imagem);
+        verify(minioService, never()).deleteFiles(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve apagar o objeto e as miniaturas ao remover a última referência")
+    void deveApagarObjetoNaUltimaReferencia() {
+        AlbumImagem imagem = AlbumImagem.builder().id(5L).album(album).objectKey("imagens/aaa").hashConteudo("aaa").build();
+        when(albumImagemRepository.findByIdAndAlbumId(5L, 1L)).thenReturn(Optional.of(imagem));
+        when(albumImagemRepository.countByHashConteudo("aaa")).thenReturn(0L);
+        when(thumbnailService.chavesMiniaturas(imagem)).thenReturn(List.of("imagens/thumbs/aaa-150.jpg"));
+        executarTransacaoDireto();
+
+        albumImagemService.removerImagem(1L, 5L);
+
+        InOrder ordem = inOrder(albumImagemRepository, minioService);
+        ordem.verify(albumImagemRepository).lockConteudo("aaa");
+        ordem.verify(albumImagemRepository).countByHashConteudo("aaa");
+        ordem.verify(minioService).deleteFiles(List.of("imagens/thumbs/aaa-150.jpg", "imagens/aaa"));
+        verify(cacheInvalidacaoService).invalidarAlbum(1L);
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção sem enviar nada quando álbum não existir")
+    void deveLancarExcecaoQuandoAlbumNaoExistir() {
+        when(albumRepository.existsById(99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> albumImagemService.uploadImagens(99L, new MultipartFile[]{capa}))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        verifyNoInteractions(minioService);
+    }
+
+    @Test
+    @DisplayName("Deve enviar imagem via stream e salvar a referência")
+    void deveEnviarImagemViaStream() {
+        InputStream conteudo = new ByteArrayInputStream(new byte[]{1, 2, 3});
+        when(albumRepository.existsById(1L)).thenReturn(true);
+        when(albumRepository.getReferenceById(1L)).thenReturn(album);
+        when(minioService.uploadStream("image/png", conteudo, 3L)).thenReturn(new ObjetoArmazenado("album-1/capa.png", null, true));
+        when(albumImagemRepository.save(any(AlbumImagem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(minioService.getPresignedUrls(anyCollection())).thenReturn(Map.of("album-1/capa.png", "http://minio/capa.png"));
+        executarTransacaoDireto();
+
+        AlbumImagemDTO resultado = albumImagemService.uploadImagemStream(1L, "capa.png", "image/png", conteudo, 3L);
+
+        assertThat(resultado.getNomeArquivo()).isEqualTo("capa.png");
+        assertThat(resultado.getUrl()).isEqualTo("http://minio/capa.png");
+    }
+
+    @Test
+    @DisplayName("Deve recusar stream que não seja imagem")
+    void deveRecusarStreamQueNaoSejaImagem() {
+        when(albumRepository.existsById(1L)).thenReturn(true);
+
+        assertThatThrownBy(() -> albumImagemService.uploadImagemStream(1L, "notas.txt", "text/plain",
+                new ByteArrayInputStream(new byte[0]), 0L))
+                .isInstanceOf(InvalidUploadException.class);
+
+        verifyNoInteractions(minioService);
+    }
+
+    @Test
+    @DisplayName("Deve retornar partes recebidas para retomar upload em partes")
+    void deveRetornarPartesRecebidas() {
+        String uploadId = UUID.randomUUID().toString();
+        when(minioService.listarPartes(1L, uploadId)).thenReturn(List.of(1, 2, 4));
+
+        UploadEmPartesDTO resultado = albumImagemService.consultarUploadEmPartes(1L, uploadId);
+
+        assertThat(resultado.getPartesRecebidas()).containsExactly(1, 2, 4);
+    }
+
+    @Test
+    @DisplayName("Deve recusar parte de upload para álbum inexistente sem gravar no bucket")
+    void deveRecusarParteDeAlbumInexistente() {
+        when(albumRepository.existsById(99L)).thenReturn(false);
+
+        assertThatThrownBy(() -> albumImagemService.enviarParte(99L, UUID.randomUUID().toString(), 1,
+                new ByteArrayInputStream(new byte[0]), 0L))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        verifyNoInteractions(minioService);
+    }
+
+    @Test
+    @DisplayName("Deve recusar identificador de upload inválido")
+    void deveRecusarUploadIdInvalido() {
+        assertThatThrownBy(() -> albumImagemService.enviarParte(1L, "../../album-2", 1,
+                new ByteArrayInputStream(new byte[0]), 0L))
+                .isInstanceOf(InvalidUploadException.class);
+
+        verifyNoInteractions(minioService);
+    }
+
+    @Test
+    @DisplayName("Deve consultar metadados do arquivo da imagem do álbum")
+    void deveBuscarConteudoDaImagem() {
+        AlbumImagem imagem = AlbumImagem.builder().id(5L).album(album).objectKey("imagens/aaa").build();
+        MetadadosObjeto metadados = new MetadadosObjeto("imagens/aaa", "etag", 10L, "image/png", null);
+        when(albumImagemRepository.findByIdAndAlbumId(5L, 1L)).thenReturn(Optional.of(imagem));
+        when(minioService.statFile("imagens/aaa")).thenReturn(metadados);
+
+        assertThat(albumImagemService.buscarConteudo(1L, 5L)).isSameAs(metadados);
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção ao buscar conteúdo de imagem de outro álbum")
+    void deveLancarExcecaoAoBuscarConteudoDeOutroAlbum() {
+        when(albumImagemRepository.findByIdAndAlbumId(5L, 2L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> albumImagemService.buscarConteudo(2L, 5L))
+                .isInstanceOf(ResourceNotFoundException.class);
+
+        verifyNoInteractions(minioService);
+    }
+}
@@ -1,10 +1,15 @@
 package br.gov.mt.seplag.artistas.service;
 
 import br.gov.mt.seplag.artistas.domain.entity.Album;
+import br.gov.mt.seplag.artistas.domain.entity.AlbumImagem;
 import br.gov.mt.seplag.artistas.domain.entity.Artista;
 import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
 import br.gov.mt.seplag.artistas.dto.AlbumDTO;
+import br.gov.mt.seplag.artistas.dto.AlbumImagemDTO;
+import br.gov.mt.seplag.artistas.dto.ArtistaDTO;
+import br.gov.mt.seplag.artistas.exception.PreconditionFailedException;
 import br.gov.mt.seplag.artistas.exception.ResourceNotFoundException;
+import br.gov.mt.seplag.artistas.repository.AlbumImagemRepository;
 import br.gov.mt.seplag.artistas.repository.AlbumRepository;
 import br.gov.mt.seplag.artistas.repository.ArtistaRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,7 +21,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -30,15 +39,24 @@ class AlbumServiceTest {
     @Mock
     private AlbumRepository albumRepository;
 
+    @Mock
+    private AlbumImagemRepository albumImagemRepository;
+
     @Mock
     private ArtistaRepository artistaRepository;
 
     @Mock
     private MinioService minioService;
 
+    @Mock
+    private ThumbnailService thumbnailService;
+
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
+    @Mock
+    private CacheInvalidacaoService cacheInvalidacaoService;
+
     @InjectMocks
     private AlbumService albumService;
 
@@ -71,10 +89,10 @@ class AlbumServiceTest {
     @Test
     @DisplayName("Deve listar todos os álbuns com paginação")
     void deveListarTodosAlbuns() {
-        List<Album> albuns = Collections.singletonList(album);
-        Page<Album> page = new PageImpl<>(albuns);
+        Page<Long> pageIds = new PageImpl<>(Collections.singletonList(1L));
 
-        when(albumRepository.findAll(any(Pageable.class))).thenReturn(page);
+        when(albumRepository.findPageIds(any(Pageable.class))).thenReturn(pageIds);
+        when(albumRepository.findAllWithArtistasByIdIn(List.of(1L))).thenReturn(Collections.singletonList(album));
 
         Page<AlbumDTO> resultado = albumService.listarTodos(0, 10, "asc");
 
@@ -82,7 +100,42 @@ class AlbumServiceTest {
         assertThat(resultado.getContent()).hasSize(1);
         assertThat(resultado.getContent().get(0).getTitulo()).isEqualTo("Harakiri");
 
-        verify(albumRepository, times(1)).findAll(any(Pageable.class));
+        verify(albumRepository, times(1)).findPageIds(any(Pageable.class));
+        verify(albumRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve carregar artistas e imagens da página em lote, preservando a ordem")
+    void deveCarregarPaginaEmLote() {
+        Album outroAlbum = Album.builder()
+                .id(2L)
+                .titulo("Black Blooms")
+                .artistas(new HashSet<>(Collections.singletonList(artista)))
+                .imagens(new ArrayList<>())
+                .build();
+        AlbumImagem imagem = AlbumImagem.builder()
+                .id(10L)
+                .album(outroAlbum)
+                .nomeArquivo("capa.jpg")
+                .objectKey("album-2/capa.jpg")
+                .build();
+        Page<Long> pageIds = new PageImpl<>(Arrays.asList(2L, 1L));
+
+        when(albumRepository.findPageIds(any(Pageable.class))).thenReturn(pageIds);
+        when(albumRepository.findAllWithArtistasByIdIn(Arrays.asList(2L, 1L))).thenReturn(Arrays.asList(album, outroAlbum));
+        when(albumImagemRepository.findByAlbumIdIn(Arrays.asList(2L, 1L))).thenReturn(Collections.singletonList(imagem));
+        when(minioService.getPresignedUrls(anyCollection())).thenReturn(Map.of("album-2/capa.jpg", "http://minio/capa"));
+
+        Page<AlbumDTO> resultado = albumService.listarTodos(0, 10, "asc");
+
+        assertThat(resultado.getContent()).extracting(AlbumDTO::getId).containsExactly(2L, 1L);
+        assertThat(resultado.getContent().get(0).getImagens()).hasSize(1);
+        assertThat(resultado.getContent().get(0).getImagens().get(0).getUrl()).isEqualTo("http://minio/capa");
+        assertThat(resultado.getContent().get(1).getImagens()).isEmpty();
+
+        verify(albumRepository, times(1)).findAllWithArtistasByIdIn(anyCollection());
+        verify(albumImagemRepository, times(1)).findByAlbumIdIn(anyCollection());
+        verify(minioService, times(1)).getPresignedUrls(anyCollection());
     }
 
     @Test
@@ -114,35 +167,35 @@ class AlbumServiceTest {
     @Test
     @DisplayName("Deve buscar álbuns por tipo de artista")
     void deveBuscarAlbunsPorTipoArtista() {
-        List<Album> albuns = Collections.singletonList(album);
-        Page<Album> page = new PageImpl<>(albuns);
+        Page<Long> pageIds = new PageImpl<>(Collections.singletonList(1L));
 
-        when(albumRepository.findByTipoArtista(eq(TipoArtista.CANTOR), any(Pageable.class)))
-                .thenReturn(page);
+        when(albumRepository.findPageIdsByTipoArtista(eq(TipoArtista.CANTOR), any(Pageable.class)))
+                .thenReturn(pageIds);
+        when(albumRepository.findAllWithArtistasByIdIn(List.of(1L))).thenReturn(Collections.singletonList(album));
 
         Page<AlbumDTO> resultado = albumService.buscarPorTipoArtista("CANTOR", 0, 10, "asc");
 
         assertThat(resultado).isNotNull();
         assertThat(resultado.getContent()).hasSize(1);
 
-        verify(albumRepository, times(1)).findByTipoArtista(eq(TipoArtista.CANTOR), any(Pageable.class));
+        verify(albumRepository, times(1)).findPageIdsByTipoArtista(eq(TipoArtista.CANTOR), any(Pageable.class));
     }
 
     @Test
     @DisplayName("Deve buscar álbuns por nome do artista")
     void deveBuscarAlbunsPorNomeArtista() {
-        List<Album> albuns = Collections.singletonList(album);
-        Page<Album> page = new PageImpl<>(albuns);
+        Page<Long> pageIds = new PageImpl<>(Collections.singletonList(1L));
 
-        when(albumRepository.findByArtistaNome(eq("Serj"), any(Pageable.class)))
-                .thenReturn(page);
+        when(albumRepository.findPageIdsByArtistaNome(eq("Serj"), any(Pageable.class)))
+                .thenReturn(pageIds);
+        when(albumRepository.findAllWithArtistasByIdIn(List.of(1L))).thenReturn(Collections.singletonList(album));
 
         Page<AlbumDTO> resultado = albumService.buscarPorNomeArtista("Serj", 0, 10, "asc");
 
         assertThat(resultado).isNotNull();
         assertThat(resultado.getContent()).hasSize(1);
 
-        verify(albumRepository, times(1)).findByArtistaNome(eq("Serj"), any(Pageable.class));
+        verify(albumRepository, times(1)).findPageIdsByArtistaNome(eq("Serj"), any(Pageable.class));
     }
 
     @Test
@@ -192,14 +245,157 @@ class AlbumServiceTest {
 
         when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
         when(artistaRepository.findAllById(anySet())).thenReturn(Collections.singletonList(artista));
-        when(albumRepository.save(any(Album.class))).thenReturn(albumAtualizado);
+        when(albumRepository.saveAndFlush(any(Album.class))).thenReturn(albumAtualizado);
 
-        AlbumDTO resultado = albumService.atualizar(1L, atualizacaoDTO);
+        AlbumDTO resultado = albumService.atualizar(1L, atualizacaoDTO, null);
 
         assertThat(resultado).isNotNull();
         assertThat(resultado.getTitulo()).isEqualTo("Harakiri Updated");
 
         verify(albumRepository, times(1)).findById(1L);
-        verify(albumRepository, times(1)).save(any(Album.class));
+        verify(albumRepository, times(1)).saveAndFlush(any(Album.class));
+        verify(cacheInvalidacaoService).invalidarAlbum(1L);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache dos artistas removidos e incluídos no álbum")
+    void deveInvalidarArtistasAoTrocarArtistasDoAlbum() {
+        Artista outroArtista = Artista.builder().id(2L).nome("System of a Down").tipo(TipoArtista.BANDA).build();
+        AlbumDTO atualizacaoDTO = AlbumDTO.builder()
+                .titulo("Harakiri")
+                .artistaIds(Set.of(2L))
+                .build();
+
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+        when(artistaRepository.findAllById(anySet())).thenReturn(Collections.singletonList(outroArtista));
+        when(albumRepository.saveAndFlush(any(Album.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        albumService.atualizar(1L, atualizacaoDTO, null);
+
+        verify(cacheInvalidacaoService).invalidarArtistas(Set.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("Deve listar álbuns do artista usando a contagem mantida no artista como total")
+    void deveListarAlbunsDoArtista() {
+        when(artistaRepository.findQuantidadeAlbunsById(1L)).thenReturn(Optional.of(25));
+        when(albumRepository.findIdsByArtistaId(eq(1L), any(Pageable.class))).thenReturn(List.of(1L));
+        when(albumRepository.findAllWithArtistasByIdIn(List.of(1L))).thenReturn(Collections.singletonList(album));
+
+        Page<AlbumDTO> resultado = albumService.listarPorArtista(1L, 2, 10, "asc");
+
+        assertThat(resultado.getContent()).extracting(AlbumDTO::getTitulo).containsExactly("Harakiri");
+        assertThat(resultado.getTotalElements()).isEqualTo(25);
+        assertThat(resultado.getTotalPages()).isEqualTo(3);
+        verify(albumRepository).findIdsByArtistaId(1L,
+                PageRequest.of(2, 10, Sort.by("titulo").ascending().and(Sort.by("id"))));
+        verify(albumRepository, never()).findPageIdsByArtistaNome(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção ao listar álbuns de artista inexistente")
+    void deveLancarExcecaoAoListarAlbunsDeArtistaInexistente() {
+        when(artistaRepository.findQuantidadeAlbunsById(99L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> albumService.listarPorArtista(99L, 0, 10, "asc"))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Artista não encontrado");
+
+        verify(albumRepository, never()).findIdsByArtistaId(anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve montar a versão do detalhe no mesmo formato da consulta de versão")
+    void deveMontarVersaoDoDetalhe() {
+        AlbumDTO detalhe = AlbumDTO.builder()
+                .id(1L)
+                .versao(3L)
+                .artistas(List.of(
+                        ArtistaDTO.builder().id(7L).nome("Serj Tankian").tipo(TipoArtista.CANTOR).build(),
+                        ArtistaDTO.builder().id(2L).nome("System of a Down").tipo(TipoArtista.BANDA).build()))
+                .imagens(List.of(
+                        AlbumImagemDTO.builder().id(11L).miniaturas(Map.of()).build(),
+                        AlbumImagemDTO.builder().id(10L).miniaturas(Map.of(150, "http://thumb")).build()))
+                .build();
+
+        // Mesmo md5(nome:tipo) da consulta nativa de findVersaoById
+        String soad = DigestUtils.md5DigestAsHex("System of a Down:BANDA".getBytes(StandardCharsets.UTF_8));
+        String serj = DigestUtils.md5DigestAsHex("Serj Tankian:CANTOR".getBytes(StandardCharsets.UTF_8));
+        assertThat(albumService.versaoDe(detalhe)).isEqualTo("3|2:" + soad + ",7:" + serj + "|10:1,11:0");
+    }
+
+    @Test
+    @DisplayName("Deve gerar ETag fraco que muda junto com a versão")
+    void deveGerarEtagFraco() {
+        ReflectionTestUtils.setField(albumService, "janelaEtagSegundos", 300L);
+
+        String etag = albumService.etag("3|2:4|10:1");
+
+        assertThat(etag).startsWith("W/\"").endsWith("\"");
+        assertThat(albumService.etag("3|2:4|10:1")).isEqualTo(etag);
+        assertThat(albumService.etag("4|2:4|10:1")).isNotEqualTo(etag);
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção ao buscar versão de álbum inexistente")
+    void deveLancarExcecaoAoBuscarVersaoInexistente() {
+        when(albumRepository.findVersaoById(99L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> albumService.buscarVersao(99L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Álbum não encontrado");
+    }
+
+    @Test
+    @DisplayName("Deve recusar com 412 quando If-Match difere da versão do álbum")
+    void deveRecusarIfMatchDivergente() {
+        album.setVersao(5L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        assertThatThrownBy(() -> albumService.atualizar(1L, albumDTO, "\"4\""))
+                .isInstanceOf(PreconditionFailedException.class)
+                .hasMessageContaining("versão 5");
+
+        verify(albumRepository, never()).saveAndFlush(any(Album.class));
+        verifyNoInteractions(cacheInvalidacaoService);
+    }
+
+    @Test
+    @DisplayName("Deve aceitar em If-Match o ETag devolvido pelo GET do álbum")
+    void deveAceitarEtagDoGetNoIfMatch() {
+        ReflectionTestUtils.setField(albumService, "janelaEtagSegundos", 300L);
+        album.setVersao(5L);
+        when(albumRepository.findByIdWithArtistas(1L)).thenReturn(Optional.of(album));
+        String etagDoGet = albumService.etag(albumService.versaoDe(albumService.recarregar(1L)));
+
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+        when(artistaRepository.findAllById(anySet())).thenReturn(Collections.singletonList(artista));
+        when(albumRepository.saveAndFlush(any(Album.class))).thenAnswer(invocation -> {
+            Album salvo = invocation.getArgument(0);
+            salvo.setVersao(6L);
+            return salvo;
+        });
+
+        AlbumDTO atualizado = albumService.atualizar(1L, albumDTO, etagDoGet);
+        String etagDoPut = albumService.etag(albumService.versaoDe(atualizado));
+
+        assertThat(etagDoGet).startsWith("W/\"5-");
+        assertThat(etagDoPut).startsWith("W/\"6-");
+        // O ETag do GET anterior à edição agora está desatualizado
+        assertThatThrownBy(() -> albumService.atualizar(1L, albumDTO, etagDoGet))
+                .isInstanceOf(PreconditionFailedException.class);
+    }
+
+    @Test
+    @DisplayName("Deve recusar com conflito quando a versão do corpo está desatualizada")
+    void deveRecusarVersaoDoCorpoDesatualizada() {
+        album.setVersao(5L);
+        albumDTO.setVersao(4L);
+        when(albumRepository.findById(1L)).thenReturn(Optional.of(album));
+
+        assertThatThrownBy(() -> albumService.atualizar(1L, albumDTO, null))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        verify(albumRepository, never()).saveAndFlush(any(Album.class));
     }
 }
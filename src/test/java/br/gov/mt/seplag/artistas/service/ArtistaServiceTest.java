@@ -3,7 +3,11 @@ package br.gov.mt.seplag.artistas.service;
 import br.gov.mt.seplag.artistas.domain.entity.Artista;
 import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
 import br.gov.mt.seplag.artistas.dto.ArtistaDTO;
+import br.gov.mt.seplag.artistas.dto.CursorPageDTO;
+import br.gov.mt.seplag.artistas.exception.InvalidCursorException;
+import br.gov.mt.seplag.artistas.exception.PreconditionFailedException;
 import br.gov.mt.seplag.artistas.exception.ResourceNotFoundException;
+import br.gov.mt.seplag.artistas.repository.AlbumRepository;
 import br.gov.mt.seplag.artistas.repository.ArtistaRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -13,6 +17,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.util.Arrays;
 import java.util.List;
@@ -28,6 +33,12 @@ class ArtistaServiceTest {
     @Mock
     private ArtistaRepository artistaRepository;
 
+    @Mock
+    private AlbumRepository albumRepository;
+
+    @Mock
+    private CacheInvalidacaoService cacheInvalidacaoService;
+
     @InjectMocks
     private ArtistaService artistaService;
 
@@ -98,7 +109,7 @@ class ArtistaServiceTest {
         List<Artista> artistas = Arrays.asList(artista);
         Page<Artista> page = new PageImpl<>(artistas);
 
-        when(artistaRepository.findByNomeContainingIgnoreCase(anyString(), any(Pageable.class)))
+        when(artistaRepository.buscarPorNome(anyString(), any(Pageable.class)))
                 .thenReturn(page);
 
         Page<ArtistaDTO> resultado = artistaService.buscarPorNome("Serj", 0, 10, "asc");
@@ -107,7 +118,23 @@ class ArtistaServiceTest {
         assertThat(resultado.getContent()).hasSize(1);
         assertThat(resultado.getContent().get(0).getNome()).contains("Serj");
 
-        verify(artistaRepository, times(1)).findByNomeContainingIgnoreCase(anyString(), any(Pageable.class));
+        verify(artistaRepository, times(1)).buscarPorNome(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve buscar artistas por nome ordenados por relevância")
+    void deveBuscarArtistasPorNomeRelevancia() {
+        Page<Artista> page = new PageImpl<>(Arrays.asList(artista));
+
+        when(artistaRepository.buscarPorNomeRelevancia(eq("Serj Tankan"), any(Pageable.class)))
+                .thenReturn(page);
+
+        Page<ArtistaDTO> resultado = artistaService.buscarPorNomeRelevancia("Serj Tankan", 0, 10);
+
+        assertThat(resultado.getContent()).hasSize(1);
+        assertThat(resultado.getContent().get(0).getNome()).isEqualTo("Serj Tankian");
+
+        verify(artistaRepository, never()).buscarPorNome(anyString(), any(Pageable.class));
     }
 
     @Test
@@ -157,15 +184,18 @@ class ArtistaServiceTest {
                 .build();
 
         when(artistaRepository.findById(1L)).thenReturn(Optional.of(artista));
-        when(artistaRepository.save(any(Artista.class))).thenReturn(artistaAtualizado);
+        when(artistaRepository.saveAndFlush(any(Artista.class))).thenReturn(artistaAtualizado);
+        when(albumRepository.findIdsByArtistaId(1L)).thenReturn(List.of(10L, 11L));
 
-        ArtistaDTO resultado = artistaService.atualizar(1L, atualizacaoDTO);
+        ArtistaDTO resultado = artistaService.atualizar(1L, atualizacaoDTO, null);
 
         assertThat(resultado).isNotNull();
         assertThat(resultado.getNome()).isEqualTo("Serj Tankian Updated");
 
         verify(artistaRepository, times(1)).findById(1L);
-        verify(artistaRepository, times(1)).save(any(Artista.class));
+        verify(artistaRepository, times(1)).saveAndFlush(any(Artista.class));
+        verify(cacheInvalidacaoService).invalidarArtista(1L);
+        verify(cacheInvalidacaoService).invalidarAlbuns(List.of(10L, 11L));
     }
 
     @Test
@@ -181,4 +211,99 @@ class ArtistaServiceTest {
         assertThat(resultado).isNotNull();
         verify(artistaRepository, times(1)).findAll(any(Pageable.class));
     }
+
+    @Test
+    @DisplayName("Deve paginar por cursor e continuar a partir do último artista")
+    void devePaginarPorCursor() {
+        Artista outro = Artista.builder()
+                .id(2L)
+                .nome("System of a Down")
+                .tipo(TipoArtista.BANDA)
+                .build();
+
+        when(artistaRepository.findKeysetAsc(any(Pageable.class))).thenReturn(Arrays.asList(artista, outro));
+
+        CursorPageDTO<ArtistaDTO> primeira = artistaService.listarPorCursor("", 1, "asc");
+
+        assertThat(primeira.getContent()).extracting(ArtistaDTO::getNome).containsExactly("Serj Tankian");
+        assertThat(primeira.isHasNext()).isTrue();
+        assertThat(primeira.getNextCursor()).isNotBlank();
+
+        when(artistaRepository.findKeysetAscAfter(eq("Serj Tankian"), eq(1L), any(Pageable.class)))
+                .thenReturn(List.of(outro));
+
+        CursorPageDTO<ArtistaDTO> segunda = artistaService.listarPorCursor(primeira.getNextCursor(), 1, "asc");
+
+        assertThat(segunda.getContent()).extracting(ArtistaDTO::getNome).containsExactly("System of a Down");
+        assertThat(segunda.isHasNext()).isFalse();
+        assertThat(segunda.getNextCursor()).isNull();
+        verify(artistaRepository, never()).count();
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar cursor inválido")
+    void deveRejeitarCursorInvalido() {
+        assertThatThrownBy(() -> artistaService.listarPorCursor("%%%", 10, "asc"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    @DisplayName("Deve buscar a versão do artista sem carregar a entidade")
+    void deveBuscarVersaoDoArtista() {
+        ArtistaRepository.VersaoArtista versao = mock(ArtistaRepository.VersaoArtista.class);
+        when(versao.getVersao()).thenReturn(5L);
+        when(artistaRepository.findVersaoById(1L)).thenReturn(Optional.of(versao));
+
+        assertThat(artistaService.buscarVersao(1L).getVersao()).isEqualTo(5L);
+        assertThat(artistaService.etag(5L, 12)).isEqualTo("W/\"5-12\"");
+        verify(artistaRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção ao buscar versão de artista inexistente")
+    void deveLancarExcecaoAoBuscarVersaoInexistente() {
+        when(artistaRepository.findVersaoById(99L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> artistaService.buscarVersao(99L))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessageContaining("Artista não encontrado");
+    }
+
+    @Test
+    @DisplayName("Deve aceitar If-Match com a versão atual, inclusive o ETag fraco do GET")
+    void deveAtualizarComIfMatchDaVersaoAtual() {
+        artista.setVersao(2L);
+        when(artistaRepository.findById(1L)).thenReturn(Optional.of(artista));
+        when(artistaRepository.saveAndFlush(any(Artista.class))).thenReturn(artista);
+
+        artistaService.atualizar(1L, artistaDTO, "W/\"2\"");
+
+        verify(artistaRepository).saveAndFlush(artista);
+    }
+
+    @Test
+    @DisplayName("Deve recusar com 412 quando If-Match difere da versão atual")
+    void deveRecusarIfMatchDivergente() {
+        artista.setVersao(3L);
+        when(artistaRepository.findById(1L)).thenReturn(Optional.of(artista));
+
+        assertThatThrownBy(() -> artistaService.atualizar(1L, artistaDTO, "\"2\""))
+                .isInstanceOf(PreconditionFailedException.class);
+
+        verify(artistaRepository, never()).saveAndFlush(any(Artista.class));
+        verifyNoInteractions(cacheInvalidacaoService);
+    }
+
+    @Test
+    @DisplayName("Deve recusar com conflito quando a versão do corpo está desatualizada")
+    void deveRecusarVersaoDoCorpoDesatualizada() {
+        artista.setVersao(3L);
+        artistaDTO.setVersao(2L);
+        when(artistaRepository.findById(1L)).thenReturn(Optional.of(artista));
+
+        assertThatThrownBy(() -> artistaService.atualizar(1L, artistaDTO, null))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        verify(artistaRepository, never()).saveAndFlush(any(Artista.class));
+    }
 }
@@ -0,0 +1,117 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.config.CacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidacaoBusTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private CaffeineCacheManager cacheManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CacheInvalidacaoBus bus;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(CacheConfig.ALBUNS, CacheConfig.ARTISTAS, CacheConfig.REGIONAIS_ATIVAS);
+        meterRegistry = new SimpleMeterRegistry();
+        bus = new CacheInvalidacaoBus(cacheManager, jdbcTemplate, new DataSourceProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Deve publicar uma mensagem compacta no canal de invalidação")
+    void devePublicarMensagem() {
+        bus.publicar(CacheConfig.ALBUNS, List.of(1L, 2L));
+
+        ArgumentCaptor<Object> mensagem = ArgumentCaptor.forClass(Object.class);
+        verify(jdbcTemplate).queryForObject(eq("SELECT pg_notify(?, ?)"), eq(Object.class), eq(CacheInvalidacaoBus.CANAL), mensagem.capture());
+        assertThat((String) mensagem.getValue())
+                .startsWith(bus.getOrigem() + ";")
+                .endsWith(";albuns;1,2");
+    }
+
+    @Test
+    @DisplayName("Deve dividir listas grandes de ids em várias mensagens")
+    void deveDividirEmLotes() {
+        bus.publicar(CacheConfig.ALBUNS, LongStream.rangeClosed(1, 1200).boxed().toList());
+
+        verify(jdbcTemplate, times(3)).queryForObject(anyString(), eq(Object.class), any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve remover as chaves recebidas de outra réplica e registrar o atraso")
+    void deveAplicarMensagemDeOutraReplica() {
+        Cache albuns = cacheManager.getCache(CacheConfig.ALBUNS);
+        albuns.put(1L, "album-1");
+        albuns.put(2L, "album-2");
+
+        bus.processar("outra;" + (System.currentTimeMillis() - 15) + ";albuns;1");
+
+        assertThat(albuns.get(1L)).isNull();
+        assertThat(albuns.get(2L)).isNotNull();
+        assertThat(meterRegistry.get("cache.invalidacao.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve limpar o cache inteiro quando a mensagem não traz ids")
+    void deveLimparCacheInteiro() {
+        Cache regionais = cacheManager.getCache(CacheConfig.REGIONAIS_ATIVAS);
+        regionais.put("lista", List.of("Regional Norte"));
+
+        bus.processar("outra;" + System.currentTimeMillis() + ";regionais-ativas;*");
+
+        assertThat(regionais.get("lista")).isNull();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar as mensagens publicadas pela própria réplica")
+    void deveIgnorarMensagemPropria() {
+        Cache albuns = cacheManager.getCache(CacheConfig.ALBUNS);
+        albuns.put(1L, "album-1");
+
+        bus.processar(bus.getOrigem() + ";" + System.currentTimeMillis() + ";albuns;1");
+
+        assertThat(albuns.get(1L)).isNotNull();
+        assertThat(meterRegistry.get("cache.invalidacao.lag").timer().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve seguir aplicando mensagens depois de receber ids malformados")
+    void deveSobreviverAMensagemMalformada() {
+        Cache albuns = cacheManager.getCache(CacheConfig.ALBUNS);
+        Cache artistas = cacheManager.getCache(CacheConfig.ARTISTAS);
+        albuns.put(1L, "album-1");
+
+        assertThatCode(() -> bus.aplicar("outra;" + System.currentTimeMillis() + ";albuns;1,abc"))
+                .doesNotThrowAnyException();
+        // Não dá para saber o que ficou sem invalidar: o catálogo é limpo
+        assertThat(albuns.get(1L)).isNull();
+
+        artistas.put(7L, "artista-7");
+        bus.aplicar("outra;" + System.currentTimeMillis() + ";artistas;7");
+
+        assertThat(artistas.get(7L)).isNull();
+    }
+}
@@ -0,0 +1,93 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidacaoServiceTest {
+
+    @Mock
+    private CacheInvalidacaoBus cacheInvalidacaoBus;
+
+    private CaffeineCacheManager cacheManager;
+
+    private CacheInvalidacaoService cacheInvalidacaoService;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new CaffeineCacheManager(CacheConfig.ALBUNS, CacheConfig.ARTISTAS, CacheConfig.REGIONAIS_ATIVAS);
+        cacheInvalidacaoService = new CacheInvalidacaoService(cacheManager, Optional.of(cacheInvalidacaoBus));
+    }
+
+    @Test
+    @DisplayName("Deve remover apenas os álbuns informados")
+    void deveInvalidarApenasAlbunsInformados() {
+        Cache albuns = cacheManager.getCache(CacheConfig.ALBUNS);
+        albuns.put(1L, "album-1");
+        albuns.put(2L, "album-2");
+        albuns.put(3L, "album-3");
+
+        cacheInvalidacaoService.invalidarAlbuns(List.of(1L, 3L));
+
+        assertThat(albuns.get(1L)).isNull();
+        assertThat(albuns.get(2L)).isNotNull();
+        assertThat(albuns.get(3L)).isNull();
+        verify(cacheInvalidacaoBus).publicar(CacheConfig.ALBUNS, List.of(1L, 3L));
+    }
+
+    @Test
+    @DisplayName("Deve invalidar artista sem afetar os demais caches")
+    void deveInvalidarArtista() {
+        cacheManager.getCache(CacheConfig.ARTISTAS).put(1L, "artista-1");
+        cacheManager.getCache(CacheConfig.ALBUNS).put(1L, "album-1");
+
+        cacheInvalidacaoService.invalidarArtista(1L);
+
+        assertThat(cacheManager.getCache(CacheConfig.ARTISTAS).get(1L)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.ALBUNS).get(1L)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Deve limpar a lista de regionais ativas")
+    void deveInvalidarRegionaisAtivas() {
+        Cache regionais = cacheManager.getCache(CacheConfig.REGIONAIS_ATIVAS);
+        regionais.put("lista", List.of("Regional Norte"));
+
+        cacheInvalidacaoService.invalidarRegionaisAtivas();
+
+        assertThat(regionais.get("lista")).isNull();
+        verify(cacheInvalidacaoBus).publicar(CacheConfig.REGIONAIS_ATIVAS, List.of());
+    }
+
+    @Test
+    @DisplayName("Não deve publicar invalidação sem ids")
+    void naoDevePublicarSemIds() {
+        cacheInvalidacaoService.invalidarAlbuns(List.of());
+
+        verifyNoInteractions(cacheInvalidacaoBus);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar localmente quando o barramento está desativado")
+    void deveInvalidarSemBarramento() {
+        CacheInvalidacaoService semBarramento = new CacheInvalidacaoService(cacheManager, Optional.empty());
+        cacheManager.getCache(CacheConfig.ALBUNS).put(1L, "album-1");
+
+        semBarramento.invalidarAlbum(1L);
+
+        assertThat(cacheManager.getCache(CacheConfig.ALBUNS).get(1L)).isNull();
+    }
+}
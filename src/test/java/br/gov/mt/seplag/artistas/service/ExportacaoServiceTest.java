@@ -0,0 +1,96 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
+import br.gov.mt.seplag.artistas.dto.AlbumExportacaoDTO;
+import br.gov.mt.seplag.artistas.dto.ArtistaDTO;
+import br.gov.mt.seplag.artistas.repository.CatalogoExportRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportacaoServiceTest {
+
+    @Mock
+    private CatalogoExportRepository catalogoExportRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private ExportacaoService exportacaoService;
+
+    private AlbumExportacaoDTO harakiri;
+    private AlbumExportacaoDTO aoVivo;
+
+    @BeforeEach
+    void setUp() {
+        harakiri = AlbumExportacaoDTO.builder()
+                .id(1L)
+                .titulo("Harakiri")
+                .artistas(List.of(ArtistaDTO.builder().id(1L).nome("Serj Tankian").tipo(TipoArtista.CANTOR).versao(0L).build()))
+                .imagens(List.of("capa-1.jpg"))
+                .build();
+        aoVivo = AlbumExportacaoDTO.builder()
+                .id(2L)
+                .titulo("Live, \"Vol. 1\"")
+                .dataCriacao(LocalDateTime.of(2024, 1, 15, 10, 30))
+                .artistas(List.of(
+                        ArtistaDTO.builder().id(2L).nome("Mike Shinoda").tipo(TipoArtista.CANTOR).build(),
+                        ArtistaDTO.builder().id(3L).nome("Linkin Park").tipo(TipoArtista.BANDA).build()))
+                .imagens(List.of())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Deve exportar um álbum por linha em NDJSON e fechar o stream do banco")
+    void deveExportarNdjson() throws Exception {
+        AtomicBoolean fechado = new AtomicBoolean();
+        when(catalogoExportRepository.streamAlbuns()).thenReturn(Stream.of(harakiri).onClose(() -> fechado.set(true)));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        long exportados = exportacaoService.exportar(saida, FormatoCatalogo.NDJSON);
+
+        String[] linhas = saida.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(exportados).isEqualTo(1);
+        assertThat(linhas).hasSize(1);
+        JsonNode album = objectMapper.readTree(linhas[0]);
+        assertThat(album.get("titulo").asText()).isEqualTo("Harakiri");
+        assertThat(album.get("artistas").get(0).get("nome").asText()).isEqualTo("Serj Tankian");
+        assertThat(album.get("imagens").get(0).asText()).isEqualTo("capa-1.jpg");
+        assertThat(fechado).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve exportar CSV com cabeçalho e campos com vírgula e aspas escapados")
+    void deveExportarCsv() throws Exception {
+        when(catalogoExportRepository.streamAlbuns()).thenReturn(Stream.of(harakiri, aoVivo));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+
+        long exportados = exportacaoService.exportar(saida, FormatoCatalogo.CSV);
+
+        assertThat(exportados).isEqualTo(2);
+        assertThat(saida.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                id,titulo,data_criacao,artistas,imagens
+                1,Harakiri,,Serj Tankian:CANTOR,capa-1.jpg
+                2,"Live, ""Vol. 1\"\"\",2024-01-15T10:30,Mike Shinoda:CANTOR|Linkin Park:BANDA,
+                """);
+    }
+}
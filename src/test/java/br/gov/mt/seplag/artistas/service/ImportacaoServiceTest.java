@@ -0,0 +1,188 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.domain.entity.TipoArtista;
+import br.gov.mt.seplag.artistas.dto.ImportacaoResultadoDTO;
+import br.gov.mt.seplag.artistas.repository.CatalogoImportRepository;
+import br.gov.mt.seplag.artistas.repository.CatalogoImportRepository.NovoAlbum;
+import br.gov.mt.seplag.artistas.repository.CatalogoImportRepository.NovoArtista;
+import br.gov.mt.seplag.artistas.repository.CatalogoImportRepository.Vinculo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportacaoServiceTest {
+
+    @Mock
+    private CatalogoImportRepository catalogoImportRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CacheInvalidacaoService cacheInvalidacaoService;
+
+    @InjectMocks
+    private ImportacaoService importacaoService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        lenient().when(catalogoImportRepository.reservarIdsArtista(anyInt())).thenAnswer(invocation ->
+                ids(100, invocation.getArgument(0)));
+        lenient().when(catalogoImportRepository.reservarIdsAlbum(anyInt())).thenAnswer(invocation ->
+                ids(500, invocation.getArgument(0)));
+    }
+
+    @Test
+    @DisplayName("Deve importar NDJSON reaproveitando artistas existentes pelo nome")
+    void deveImportarNdjson() throws Exception {
+        when(catalogoImportRepository.buscarArtistasPorNome(anyCollection())).thenReturn(Map.of("serj tankian", 1L));
+
+        ImportacaoResultadoDTO resultado = importacaoService.importar(corpo("""
+                {"titulo": "Harakiri", "artistas": [{"nome": "Serj Tankian", "tipo": "CANTOR"}]}
+                {"titulo": "Mezmerize", "artistas": [{"nome": "System of a Down", "tipo": "BANDA"}, {"nome": "serj tankian", "tipo": "CANTOR"}]}
+                """), StandardCharsets.UTF_8, FormatoCatalogo.NDJSON);
+
+        assertThat(resultado.getLinhasProcessadas()).isEqualTo(2);
+        assertThat(resultado.getAlbunsCriados()).isEqualTo(2);
+        assertThat(resultado.getArtistasCriados()).isEqualTo(1);
+        assertThat(resultado.getLinhasComErro()).isZero();
+
+        verify(catalogoImportRepository).lockImportacao();
+        verify(catalogoImportRepository).inserirArtistas(List.of(new NovoArtista(100L, "System of a Down", TipoArtista.BANDA)));
+        verify(catalogoImportRepository).inserirAlbuns(List.of(new NovoAlbum(500L, "Harakiri"), new NovoAlbum(501L, "Mezmerize")));
+        verify(catalogoImportRepository).inserirVinculos(List.of(
+                new Vinculo(1L, 500L), new Vinculo(100L, 501L), new Vinculo(1L, 501L)));
+        verify(cacheInvalidacaoService).invalidarArtistas(Set.of(1L, 100L));
+    }
+
+    @Test
+    @DisplayName("Deve reportar linhas inválidas com o número da linha e gravar as demais")
+    void deveReportarLinhasInvalidas() throws Exception {
+        ImportacaoResultadoDTO resultado = importacaoService.importar(corpo("""
+                {"titulo": "Harakiri", "artistas": [{"nome": "Serj Tankian", "tipo": "CANTOR"}]}
+                {"titulo": "Sem artistas", "artistas": []}
+
+                {nao e json
+                {"titulo": "Tipo errado", "artistas": [{"nome": "X", "tipo": "ORQUESTRA"}]}
+                """), StandardCharsets.UTF_8, FormatoCatalogo.NDJSON);
+
+        assertThat(resultado.getLinhasProcessadas()).isEqualTo(4);
+        assertThat(resultado.getAlbunsCriados()).isEqualTo(1);
+        assertThat(resultado.getLinhasComErro()).isEqualTo(3);
+        assertThat(resultado.getErros())
+                .extracting(ImportacaoResultadoDTO.ErroImportacaoDTO::getLinha)
+                .containsExactly(2L, 4L, 5L);
+        assertThat(resultado.getErros().get(0).getMensagem()).contains("pelo menos um artista");
+        verify(catalogoImportRepository).inserirAlbuns(List.of(new NovoAlbum(500L, "Harakiri")));
+    }
+
+    @Test
+    @DisplayName("Deve reportar álbum ou artista null como erro da linha")
+    void deveReportarAlbumOuArtistaNull() throws Exception {
+        ImportacaoResultadoDTO resultado = importacaoService.importar(corpo("""
+                null
+                {"titulo": "Harakiri", "artistas": [null]}
+                {"titulo": "Mezmerize", "artistas": [{"nome": "System of a Down", "tipo": "BANDA"}]}
+                """), StandardCharsets.UTF_8, FormatoCatalogo.NDJSON);
+
+        assertThat(resultado.getLinhasProcessadas()).isEqualTo(3);
+        assertThat(resultado.getAlbunsCriados()).isEqualTo(1);
+        assertThat(resultado.getErros())
+                .extracting(ImportacaoResultadoDTO.ErroImportacaoDTO::getLinha)
+                .containsExactly(1L, 2L);
+        verify(catalogoImportRepository).inserirAlbuns(List.of(new NovoAlbum(500L, "Mezmerize")));
+    }
+
+    @Test
+    @DisplayName("Deve importar CSV com cabeçalho, aspas e vários artistas por linha")
+    void deveImportarCsv() throws Exception {
+        when(catalogoImportRepository.buscarArtistasPorNome(anyCollection())).thenReturn(Map.of());
+
+        ImportacaoResultadoDTO resultado = importacaoService.importar(corpo("""
+                titulo,artistas
+                "Live, Vol. 1",Mike Shinoda:CANTOR|Linkin Park:banda
+                Semfim,Sem Tipo
+                """), StandardCharsets.UTF_8, FormatoCatalogo.CSV);
+
+        assertThat(resultado.getLinhasProcessadas()).isEqualTo(2);
+        assertThat(resultado.getAlbunsCriados()).isEqualTo(1);
+        assertThat(resultado.getArtistasCriados()).isEqualTo(2);
+        assertThat(resultado.getErros()).singleElement()
+                .satisfies(erro -> {
+                    assertThat(erro.getLinha()).isEqualTo(3);
+                    assertThat(erro.getMensagem()).contains("Artista sem tipo");
+                });
+        verify(catalogoImportRepository).inserirAlbuns(List.of(new NovoAlbum(500L, "Live, Vol. 1")));
+        verify(catalogoImportRepository).inserirArtistas(List.of(
+                new NovoArtista(100L, "Mike Shinoda", TipoArtista.CANTOR),
+                new NovoArtista(101L, "Linkin Park", TipoArtista.BANDA)));
+    }
+
+    @Test
+    @DisplayName("Deve importar CSV no layout da exportação, usando só título e artistas")
+    void deveImportarCsvExportado() throws Exception {
+        when(catalogoImportRepository.buscarArtistasPorNome(anyCollection())).thenReturn(Map.of("serj tankian", 1L));
+
+        ImportacaoResultadoDTO resultado = importacaoService.importar(corpo("""
+                id,titulo,data_criacao,artistas,imagens
+                7,"Live, Vol. 1",2024-01-10T12:00,Serj Tankian:CANTOR,imagens/aaa|imagens/bbb
+                """), StandardCharsets.UTF_8, FormatoCatalogo.CSV);
+
+        assertThat(resultado.getLinhasProcessadas()).isEqualTo(1);
+        assertThat(resultado.getLinhasComErro()).isZero();
+        verify(catalogoImportRepository).inserirAlbuns(List.of(new NovoAlbum(500L, "Live, Vol. 1")));
+        verify(catalogoImportRepository).inserirVinculos(List.of(new Vinculo(1L, 500L)));
+    }
+
+    @Test
+    @DisplayName("Deve reportar todas as linhas de um lote que falhou no banco")
+    void deveReportarLoteQueFalhou() throws Exception {
+        when(transactionTemplate.execute(any())).thenThrow(new DataIntegrityViolationException("falha"));
+
+        ImportacaoResultadoDTO resultado = importacaoService.importar(corpo("""
+                {"titulo": "Harakiri", "artistas": [{"nome": "Serj Tankian", "tipo": "CANTOR"}]}
+                {"titulo": "Mezmerize", "artistas": [{"nome": "System of a Down", "tipo": "BANDA"}]}
+                """), StandardCharsets.UTF_8, FormatoCatalogo.NDJSON);
+
+        assertThat(resultado.getAlbunsCriados()).isZero();
+        assertThat(resultado.getLinhasComErro()).isEqualTo(2);
+        assertThat(resultado.getErros()).allSatisfy(erro ->
+                assertThat(erro.getMensagem()).startsWith("Lote não gravado"));
+        verify(cacheInvalidacaoService, never()).invalidarArtistas(anyCollection());
+    }
+
+    private static InputStream corpo(String conteudo) {
+        return new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Long> ids(long inicio, int quantidade) {
+        return LongStream.range(inicio, inicio + quantidade).boxed().toList();
+    }
+}
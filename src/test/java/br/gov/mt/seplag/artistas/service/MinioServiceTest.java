@@ -0,0 +1,203 @@
+package br.gov.mt.seplag.artistas.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import br.gov.mt.seplag.artistas.exception.InvalidUploadException;
+import io.minio.ComposeObjectArgs;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.ErrorResponse;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MinioServiceTest {
+
+    @Mock
+    private MinioClient minioClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MinioService minioService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        minioService = new MinioService(minioClient, meterRegistry);
+        ReflectionTestUtils.setField(minioService, "bucketName", "test-album-capas");
+        ReflectionTestUtils.setField(minioService, "presignedUrlExpiry", 1800);
+        ReflectionTestUtils.setField(minioService, "presignedUrlCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(minioService, "presignedUrlSafetyMargin", 300);
+        minioService.initPresignedUrlCache();
+    }
+
+    @Test
+    @DisplayName("Deve reutilizar URL pré-assinada em cache")
+    void deveReutilizarUrlEmCache() throws Exception {
+        when(minioClient.getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class)))
+                .thenReturn("http://minio/album-1/capa.jpg?assinatura");
+
+        String primeira = minioService.getPresignedUrl("album-1/capa.jpg");
+        String segunda = minioService.getPresignedUrl("album-1/capa.jpg");
+
+        assertThat(primeira).isEqualTo(segunda);
+        verify(minioClient, times(1)).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "minio.presigned-urls").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Deve gerar URLs em lote ignorando chaves nulas e repetidas")
+    void deveGerarUrlsEmLote() throws Exception {
+        when(minioClient.getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class)))
+                .thenAnswer(invocation -> "http://minio/" + invocation.<GetPresignedObjectUrlArgs>getArgument(0).object());
+
+        List<String> chaves = Arrays.asList("album-1/a.jpg", "album-1/b.jpg", null, "album-1/a.jpg");
+
+        Map<String, String> urls = minioService.getPresignedUrls(chaves);
+
+        assertThat(urls).hasSize(2);
+        assertThat(urls.get("album-1/a.jpg")).isEqualTo("http://minio/album-1/a.jpg");
+        assertThat(urls.get("album-1/b.jpg")).isEqualTo("http://minio/album-1/b.jpg");
+        verify(minioClient, times(2)).getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class));
+    }
+
+    @Test
+    @DisplayName("Deve omitir do lote apenas a imagem cuja URL falhou")
+    void deveOmitirImagemComFalhaNoLote() throws Exception {
+        when(minioClient.getPresignedObjectUrl(any(GetPresignedObjectUrlArgs.class)))
+                .thenAnswer(invocation -> {
+                    String objeto = invocation.<GetPresignedObjectUrlArgs>getArgument(0).object();
+                    if (objeto.equals("album-1/erro.jpg")) {
+                        throw new IllegalStateException("falha simulada");
+                    }
+                    return "http://minio/" + objeto;
+                });
+
+        Map<String, String> urls = minioService.getPresignedUrls(List.of("album-1/ok.jpg", "album-1/erro.jpg"));
+
+        assertThat(urls).containsOnlyKeys("album-1/ok.jpg");
+    }
+
+    @Test
+    @DisplayName("Deve endereçar pelo SHA-256 e evitar o PUT quando o conteúdo já existe")
+    void deveEvitarUploadDeConteudoExistente() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("files", "capa.jpg", "image/jpeg",
+                "conteudo".getBytes(StandardCharsets.UTF_8));
+        String hashEsperado = HexFormat.of().formatHex(
+                MessageDigest.getInstance("SHA-256").digest("conteudo".getBytes(StandardCharsets.UTF_8)));
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(mock(StatObjectResponse.class));
+
+        ObjetoArmazenado objeto = minioService.uploadFile(file);
+
+        assertThat(objeto.hash()).isEqualTo(hashEsperado);
+        assertThat(objeto.objectKey()).isEqualTo("imagens/" + hashEsperado);
+        assertThat(objeto.novo()).isFalse();
+        verify(minioClient, never()).putObject(any(PutObjectArgs.class));
+    }
+
+    @Test
+    @DisplayName("Deve mover o upload via stream para a chave do conteúdo com composeObject")
+    void deveMoverUploadStreamComComposeObject() throws Exception {
+        ReflectionTestUtils.setField(minioService, "uploadPartSize", DataSize.ofMegabytes(5));
+        ErrorResponse naoEncontrado = mock(ErrorResponse.class);
+        when(naoEncontrado.code()).thenReturn("NoSuchKey");
+        ErrorResponseException excecao = mock(ErrorResponseException.class);
+        when(excecao.errorResponse()).thenReturn(naoEncontrado);
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenThrow(excecao);
+        byte[] conteudo = "capa".getBytes(StandardCharsets.UTF_8);
+
+        ObjetoArmazenado objeto = minioService.uploadStream("image/png", new ByteArrayInputStream(conteudo), conteudo.length);
+
+        ArgumentCaptor<ComposeObjectArgs> args = ArgumentCaptor.forClass(ComposeObjectArgs.class);
+        verify(minioClient).composeObject(args.capture());
+        assertThat(args.getValue().object()).isEqualTo(objeto.objectKey());
+        assertThat(args.getValue().sources()).singleElement()
+                .satisfies(origem -> assertThat(origem.object()).startsWith("uploads/tmp/"));
+        assertThat(objeto.novo()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve retornar metadados do objeto com ETag sem aspas")
+    void deveRetornarMetadadosDoObjeto() throws Exception {
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.etag()).thenReturn("\"abc123\"");
+        when(stat.size()).thenReturn(2048L);
+        when(stat.contentType()).thenReturn("image/png");
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(stat);
+
+        MetadadosObjeto metadados = minioService.statFile("imagens/abc");
+
+        assertThat(metadados.etag()).isEqualTo("abc123");
+        assertThat(metadados.tamanho()).isEqualTo(2048L);
+        assertThat(metadados.contentType()).isEqualTo("image/png");
+    }
+
+    @Test
+    @DisplayName("Deve recusar concluir upload com parte faltando, sem compor")
+    void deveRecusarUploadComParteFaltando() throws Exception {
+        when(minioClient.listObjects(any(ListObjectsArgs.class)))
+                .thenReturn(partes("part-00001", "part-00003"));
+
+        assertThatThrownBy(() -> minioService.concluirUploadEmPartes(1L, "u1", "capa.png", "image/png"))
+                .isInstanceOf(InvalidUploadException.class)
+                .hasMessageContaining("Parte 2 não recebida");
+
+        verify(minioClient, never()).composeObject(any(ComposeObjectArgs.class));
+    }
+
+    @Test
+    @DisplayName("Deve recusar concluir upload com parte intermediária menor que 5MB")
+    void deveRecusarUploadComParteMenorQueMinimo() throws Exception {
+        when(minioClient.listObjects(any(ListObjectsArgs.class)))
+                .thenReturn(partes("part-00001", "part-00002"));
+        StatObjectResponse stat = mock(StatObjectResponse.class);
+        when(stat.size()).thenReturn(1024L);
+        when(minioClient.statObject(any(StatObjectArgs.class))).thenReturn(stat);
+
+        assertThatThrownBy(() -> minioService.concluirUploadEmPartes(1L, "u1", "capa.png", "image/png"))
+                .isInstanceOf(InvalidUploadException.class)
+                .hasMessageContaining("Parte 1");
+
+        // Só as partes anteriores à última são consultadas
+        verify(minioClient, times(1)).statObject(any(StatObjectArgs.class));
+        verify(minioClient, never()).composeObject(any(ComposeObjectArgs.class));
+    }
+
+    private Iterable<Result<Item>> partes(String... nomes) {
+        List<Result<Item>> resultados = new ArrayList<>();
+        for (String nome : nomes) {
+            Item item = mock(Item.class);
+            when(item.objectName()).thenReturn("uploads/album-1/u1/" + nome);
+            resultados.add(new Result<>(item));
+        }
+        return resultados;
+    }
+}
@@ -3,24 +3,49 @@ package br.gov.mt.seplag.artistas.service;
 import br.gov.mt.seplag.artistas.domain.entity.Regional;
 import br.gov.mt.seplag.artistas.dto.RegionalDTO;
 import br.gov.mt.seplag.artistas.dto.RegionalExternaDTO;
+import br.gov.mt.seplag.artistas.exception.PayloadInvalidoException;
+import br.gov.mt.seplag.artistas.exception.SyncInProgressException;
 import br.gov.mt.seplag.artistas.repository.RegionalRepository;
+import br.gov.mt.seplag.artistas.repository.RegionalSyncRepository;
+import br.gov.mt.seplag.artistas.repository.RegionalSyncRepository.Fingerprint;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.retry.Retry;
+import io.github.resilience4j.retry.RetryConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.ParameterizedTypeReference;
+import org.mockito.stubbing.Answer;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -32,17 +57,41 @@ class RegionalServiceTest {
     @Mock
     private RegionalRepository regionalRepository;
 
+    @Mock
+    private RegionalSyncRepository regionalSyncRepository;
+
     @Mock
     private RestTemplate restTemplate;
 
+    @Mock
+    private CacheInvalidacaoService cacheInvalidacaoService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private RegionalService regionalService;
 
     private Regional regional;
 
+    private MockClientHttpRequest requisicao;
+
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
         ReflectionTestUtils.setField(regionalService, "regionaisApiUrl", "https://api.example.com/regionais");
+        lenient().when(regionalSyncRepository.tentarLockSincronizacao()).thenReturn(true);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        ReflectionTestUtils.setField(regionalService, "regionaisRetry", Retry.of("regionais", RetryConfig.custom()
+                .maxAttempts(2)
+                .waitDuration(Duration.ofMillis(1))
+                .retryExceptions(ResourceAccessException.class)
+                .build()));
+        ReflectionTestUtils.setField(regionalService, "regionaisCircuitBreaker", CircuitBreaker.ofDefaults("regionais"));
 
         regional = Regional.builder()
                 .id(1L)
@@ -80,26 +129,60 @@ class RegionalServiceTest {
         verify(regionalRepository, times(1)).findByAtivoTrue();
     }
 
+    private void mockApiExterna(List<RegionalExternaDTO> externas) {
+        mockApiExterna(externas, new HttpHeaders());
+    }
+
+    private void mockApiExterna(List<RegionalExternaDTO> externas, HttpHeaders headers) {
+        try {
+            mockApiExterna(objectMapper.writeValueAsBytes(externas), HttpStatus.OK, headers);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void mockApiExterna(byte[] corpo, HttpStatus status, HttpHeaders headers) {
+        when(restTemplate.execute(
+                anyString(),
+                eq(HttpMethod.GET),
+                any(RequestCallback.class),
+                any(ResponseExtractor.class)
+        )).thenAnswer(respostaApi(corpo, status, headers));
+    }
+
+    /**
+     * Executa o callback e o extractor passados ao RestTemplate contra uma
+     * requisição/resposta em memória; a requisição fica em {@link #requisicao}.
+     */
+    private Answer<Object> respostaApi(byte[] corpo, HttpStatus status, HttpHeaders headers) {
+        return invocation -> {
+            requisicao = new MockClientHttpRequest();
+            invocation.<RequestCallback>getArgument(2).doWithRequest(requisicao);
+
+            MockClientHttpResponse resposta = new MockClientHttpResponse(corpo, status);
+            resposta.getHeaders().putAll(headers);
+            return invocation.<ResponseExtractor<Object>>getArgument(3).extractData(resposta);
+        };
+    }
+
+    private String sha256(List<RegionalExternaDTO> externas) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(objectMapper.writeValueAsBytes(externas)));
+    }
+
     @Test
     @DisplayName("Deve inserir nova regional quando não existe no banco")
     void deveInserirNovaRegional() {
-        RegionalExternaDTO externa = RegionalExternaDTO.builder()
+        List<RegionalExternaDTO> externas = Collections.singletonList(RegionalExternaDTO.builder()
                 .id(200)
                 .nome("Regional Sul")
-                .build();
+                .build());
+        mockApiExterna(externas);
 
-        ResponseEntity<List<RegionalExternaDTO>> response = 
-                new ResponseEntity<>(Collections.singletonList(externa), HttpStatus.OK);
-
-        when(restTemplate.exchange(
-                anyString(), 
-                eq(HttpMethod.GET), 
-                isNull(), 
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(response);
-
-        when(regionalRepository.findAllByAtivoTrue()).thenReturn(Collections.emptyList());
-        when(regionalRepository.save(any(Regional.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(regionalSyncRepository.inativarAlteradas()).thenReturn(0);
+        when(regionalSyncRepository.inativarAusentes()).thenReturn(0);
+        when(regionalSyncRepository.inserirNovas()).thenReturn(1);
 
         RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
 
@@ -107,84 +190,55 @@ class RegionalServiceTest {
         assertThat(resultado.atualizados()).isEqualTo(0);
         assertThat(resultado.inativados()).isEqualTo(0);
 
-        verify(regionalRepository, times(1)).save(any(Regional.class));
+        verify(regionalSyncRepository).criarStaging();
+        verify(regionalSyncRepository).inserirStaging(argThat(lista ->
+                lista.size() == 1 && lista.get(0).getId() == 200 && "Regional Sul".equals(lista.get(0).getNome())));
+        verify(regionalRepository, never()).save(any(Regional.class));
     }
 
     @Test
     @DisplayName("Deve inativar regional quando ausente na API externa")
     void deveInativarRegionalAusente() {
-        ResponseEntity<List<RegionalExternaDTO>> response = 
-                new ResponseEntity<>(Collections.emptyList(), HttpStatus.OK);
+        mockApiExterna(Collections.emptyList());
 
-        when(restTemplate.exchange(
-                anyString(), 
-                eq(HttpMethod.GET), 
-                isNull(), 
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(response);
-
-        when(regionalRepository.findAllByAtivoTrue()).thenReturn(Collections.singletonList(regional));
-        when(regionalRepository.save(any(Regional.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(regionalSyncRepository.inativarAlteradas()).thenReturn(0);
+        when(regionalSyncRepository.inativarAusentes()).thenReturn(1);
+        when(regionalSyncRepository.inserirNovas()).thenReturn(0);
 
         RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
 
         assertThat(resultado.inseridos()).isEqualTo(0);
         assertThat(resultado.atualizados()).isEqualTo(0);
         assertThat(resultado.inativados()).isEqualTo(1);
-
-        verify(regionalRepository, times(1)).save(argThat(r -> !r.getAtivo()));
     }
 
     @Test
     @DisplayName("Deve inativar antiga e criar nova quando nome muda")
     void deveAtualizarQuandoNomeMuda() {
-        RegionalExternaDTO externa = RegionalExternaDTO.builder()
+        mockApiExterna(Collections.singletonList(RegionalExternaDTO.builder()
                 .id(100)
                 .nome("Regional Norte Atualizada")
-                .build();
-
-        ResponseEntity<List<RegionalExternaDTO>> response = 
-                new ResponseEntity<>(Collections.singletonList(externa), HttpStatus.OK);
+                .build()));
 
-        when(restTemplate.exchange(
-                anyString(), 
-                eq(HttpMethod.GET), 
-                isNull(), 
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(response);
-
-        when(regionalRepository.findAllByAtivoTrue()).thenReturn(Collections.singletonList(regional));
-        when(regionalRepository.save(any(Regional.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        // A versão nova da regional alterada também é criada pelo INSERT ... SELECT
+        when(regionalSyncRepository.inativarAlteradas()).thenReturn(1);
+        when(regionalSyncRepository.inativarAusentes()).thenReturn(0);
+        when(regionalSyncRepository.inserirNovas()).thenReturn(1);
 
         RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
 
         assertThat(resultado.inseridos()).isEqualTo(0);
         assertThat(resultado.atualizados()).isEqualTo(1);
         assertThat(resultado.inativados()).isEqualTo(0);
-
-        // Deve salvar duas vezes: uma para inativar, outra para criar nova
-        verify(regionalRepository, times(2)).save(any(Regional.class));
     }
 
     @Test
     @DisplayName("Deve não alterar quando dados são iguais")
     void deveNaoAlterarQuandoDadosIguais() {
-        RegionalExternaDTO externa = RegionalExternaDTO.builder()
+        mockApiExterna(Collections.singletonList(RegionalExternaDTO.builder()
                 .id(100)
                 .nome("Regional Norte")
-                .build();
-
-        ResponseEntity<List<RegionalExternaDTO>> response = 
-                new ResponseEntity<>(Collections.singletonList(externa), HttpStatus.OK);
-
-        when(restTemplate.exchange(
-                anyString(), 
-                eq(HttpMethod.GET), 
-                isNull(), 
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(response);
-
-        when(regionalRepository.findAllByAtivoTrue()).thenReturn(Collections.singletonList(regional));
+                .build()));
 
         RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
 
@@ -193,54 +247,227 @@ class RegionalServiceTest {
         assertThat(resultado.inativados()).isEqualTo(0);
 
         verify(regionalRepository, never()).save(any(Regional.class));
+        verify(cacheInvalidacaoService, never()).invalidarRegionaisAtivas();
     }
 
     @Test
     @DisplayName("Deve processar múltiplas operações na sincronização")
     void deveProcessarMultiplasOperacoes() {
-        // Regional existente que será inativada (id_externo=100)
-        Regional regionalExistente = Regional.builder()
-                .id(1L)
-                .idExterno(100)
+        // id_externo=300 é nova, id_externo=200 teve nome alterado, id_externo=100 não está na API
+        mockApiExterna(Arrays.asList(
+                RegionalExternaDTO.builder().id(200).nome("Regional Sul Atualizada").build(),
+                RegionalExternaDTO.builder().id(300).nome("Regional Oeste Nova").build()
+        ));
+
+        when(regionalSyncRepository.inativarAlteradas()).thenReturn(1);
+        when(regionalSyncRepository.inativarAusentes()).thenReturn(1);
+        when(regionalSyncRepository.inserirNovas()).thenReturn(2);
+
+        RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
+
+        assertThat(resultado.inseridos()).isEqualTo(1);
+        assertThat(resultado.atualizados()).isEqualTo(1);
+        assertThat(resultado.inativados()).isEqualTo(1);
+        verify(cacheInvalidacaoService).invalidarRegionaisAtivas();
+    }
+
+    @Test
+    @DisplayName("Deve ignorar regionais sem id no payload")
+    void deveIgnorarRegionaisSemId() {
+        mockApiExterna(Arrays.asList(
+                RegionalExternaDTO.builder().id(200).nome("Regional Sul").build(),
+                RegionalExternaDTO.builder().nome("Sem id").build()
+        ));
+
+        regionalService.sincronizarComApiExterna();
+
+        verify(regionalSyncRepository).inserirStaging(argThat(lista ->
+                lista.size() == 1 && lista.get(0).getId() == 200));
+    }
+
+    @Test
+    @DisplayName("Deve enviar ETag e Last-Modified da última sincronização e parar no 304")
+    void deveIgnorarQuandoApiRespondeNaoModificado() {
+        when(regionalSyncRepository.buscarFingerprint(anyString()))
+                .thenReturn(Optional.of(new Fingerprint("\"v1\"", "Wed, 14 Oct 2026 10:00:00 GMT", "abc")));
+        mockApiExterna(new byte[0], HttpStatus.NOT_MODIFIED, new HttpHeaders());
+
+        RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
+
+        assertThat(resultado.semAlteracoes()).isTrue();
+        assertThat(requisicao.getHeaders().getIfNoneMatch()).containsExactly("\"v1\"");
+        assertThat(requisicao.getHeaders().getFirst(HttpHeaders.IF_MODIFIED_SINCE)).isEqualTo("Wed, 14 Oct 2026 10:00:00 GMT");
+        verify(regionalSyncRepository, never()).criarStaging();
+        verify(regionalSyncRepository, never()).salvarFingerprint(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Deve ignorar sem criar o staging quando o hash do payload é igual ao da última sincronização")
+    void deveIgnorarQuandoPayloadIgual() throws Exception {
+        List<RegionalExternaDTO> externas = Collections.singletonList(RegionalExternaDTO.builder()
+                .id(100)
                 .nome("Regional Norte")
-                .ativo(true)
-                .build();
+                .build());
+        when(regionalSyncRepository.buscarFingerprint(anyString()))
+                .thenReturn(Optional.of(new Fingerprint(null, null, sha256(externas))));
+        mockApiExterna(externas);
 
-        // Regional existente que terá nome alterado (id_externo=200)
-        Regional regionalAlterada = Regional.builder()
-                .id(2L)
-                .idExterno(200)
-                .nome("Regional Sul")
-                .ativo(true)
-                .build();
+        RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
 
-        // Dados da API externa
-        List<RegionalExternaDTO> externas = Arrays.asList(
-                RegionalExternaDTO.builder().id(200).nome("Regional Sul Atualizada").build(),
-                RegionalExternaDTO.builder().id(300).nome("Regional Oeste Nova").build()
-        );
+        assertThat(resultado.semAlteracoes()).isTrue();
+        verify(regionalSyncRepository, never()).criarStaging();
+        verify(regionalSyncRepository, never()).inserirStaging(anyList());
+        verify(regionalSyncRepository, never()).inativarAlteradas();
+        verify(regionalSyncRepository, never()).inativarAusentes();
+        verify(regionalSyncRepository, never()).inserirNovas();
+    }
+
+    @Test
+    @DisplayName("Deve gravar a impressão do payload aplicado")
+    void deveGravarFingerprintDoPayload() throws Exception {
+        List<RegionalExternaDTO> externas = Collections.singletonList(RegionalExternaDTO.builder()
+                .id(100)
+                .nome("Regional Norte Atualizada")
+                .build());
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"v2\"");
+        when(regionalSyncRepository.buscarFingerprint(anyString()))
+                .thenReturn(Optional.of(new Fingerprint("\"v1\"", null, "hash-antigo")));
+        mockApiExterna(externas, headers);
+
+        RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
+
+        assertThat(resultado.semAlteracoes()).isFalse();
+        verify(regionalSyncRepository).salvarFingerprint("https://api.example.com/regionais",
+                new Fingerprint("\"v2\"", null, sha256(externas)));
+        verify(regionalSyncRepository).criarStaging();
+    }
+
+    @Test
+    @DisplayName("Deve recusar a sincronização quando outra instância detém o lock")
+    void deveRecusarQuandoLockOcupado() {
+        when(regionalSyncRepository.tentarLockSincronizacao()).thenReturn(false);
+
+        assertThatThrownBy(() -> regionalService.sincronizarComApiExterna())
+                .isInstanceOf(SyncInProgressException.class);
+
+        verifyNoInteractions(restTemplate);
+        verify(regionalSyncRepository, never()).criarStaging();
+    }
+
+    @Test
+    @DisplayName("Deve recusar a aplicação quando outra instância obteve o lock durante o download")
+    void deveRecusarQuandoLockObtidoDuranteDownload() {
+        when(regionalSyncRepository.tentarLockSincronizacao()).thenReturn(true, false);
+        mockApiExterna(Collections.singletonList(RegionalExternaDTO.builder().id(200).nome("Regional Sul").build()));
+
+        assertThatThrownBy(() -> regionalService.sincronizarComApiExterna())
+                .isInstanceOf(SyncInProgressException.class);
+
+        verify(regionalSyncRepository, never()).salvarFingerprint(anyString(), any());
+        verify(regionalSyncRepository, never()).criarStaging();
+    }
 
-        ResponseEntity<List<RegionalExternaDTO>> response = 
-                new ResponseEntity<>(externas, HttpStatus.OK);
+    @Test
+    @DisplayName("Deve fazer a chamada HTTP fora da transação que aplica o payload")
+    void deveChamarApiForaDaTransacao() {
+        mockApiExterna(Collections.singletonList(RegionalExternaDTO.builder().id(200).nome("Regional Sul").build()));
+
+        regionalService.sincronizarComApiExterna();
+
+        // Verificação do lock, chamada HTTP e só então a transação que carrega o staging
+        InOrder ordem = inOrder(transactionTemplate, restTemplate, regionalSyncRepository);
+        ordem.verify(transactionTemplate).execute(any());
+        ordem.verify(restTemplate).execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class));
+        ordem.verify(transactionTemplate).execute(any());
+        ordem.verify(regionalSyncRepository).criarStaging();
+    }
+
+    @Test
+    @DisplayName("Deve carregar o staging em lotes durante a leitura do payload")
+    void deveCarregarStagingEmLotes() {
+        List<RegionalExternaDTO> externas = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            externas.add(RegionalExternaDTO.builder().id(i).nome("Regional " + i).build());
+        }
+        mockApiExterna(externas);
+
+        regionalService.sincronizarComApiExterna();
+
+        verify(regionalSyncRepository, times(2)).inserirStaging(argThat(lote -> lote.size() == 1000));
+        verify(regionalSyncRepository).inserirStaging(argThat(lote -> lote.size() == 500));
+    }
+
+    @Test
+    @DisplayName("Deve tratar corpo vazio como lista vazia")
+    void deveTratarCorpoVazioComoListaVazia() {
+        mockApiExterna(new byte[0], HttpStatus.OK, new HttpHeaders());
+        when(regionalSyncRepository.inativarAusentes()).thenReturn(3);
+
+        RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
+
+        assertThat(resultado.inativados()).isEqualTo(3);
+        verify(regionalSyncRepository).criarStaging();
+        verify(regionalSyncRepository, never()).inserirStaging(anyList());
+    }
+
+    @Test
+    @DisplayName("Deve falhar quando o payload não é um array JSON")
+    void deveFalharQuandoPayloadNaoEArray() {
+        mockApiExterna("{\"id\": 1}".getBytes(StandardCharsets.UTF_8), HttpStatus.OK, new HttpHeaders());
+
+        assertThatThrownBy(() -> regionalService.sincronizarComApiExterna())
+                .isInstanceOf(PayloadInvalidoException.class)
+                .hasMessageContaining("Erro ao sincronizar com API externa");
 
-        when(restTemplate.exchange(
-                anyString(), 
-                eq(HttpMethod.GET), 
-                isNull(), 
-                any(ParameterizedTypeReference.class)
-        )).thenReturn(response);
+        verify(regionalSyncRepository, never()).inserirNovas();
+    }
+
+    @Test
+    @DisplayName("Deve buscar payload malformado uma única vez, sem contar falha no circuit breaker")
+    void deveNaoTentarNovamenteComPayloadMalformado() {
+        CircuitBreaker circuitBreaker = CircuitBreaker.ofDefaults("regionais");
+        ReflectionTestUtils.setField(regionalService, "regionaisCircuitBreaker", circuitBreaker);
+        mockApiExterna("[{\"id\": 1, \"nome\": ".getBytes(StandardCharsets.UTF_8), HttpStatus.OK, new HttpHeaders());
+
+        assertThatThrownBy(() -> regionalService.sincronizarComApiExterna())
+                .isInstanceOf(PayloadInvalidoException.class);
+
+        verify(restTemplate, times(1)).execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class));
+        assertThat(circuitBreaker.getMetrics().getNumberOfFailedCalls()).isZero();
+        verify(regionalSyncRepository, never()).inserirNovas();
+    }
 
-        when(regionalRepository.findAllByAtivoTrue())
-                .thenReturn(Arrays.asList(regionalExistente, regionalAlterada));
-        when(regionalRepository.save(any(Regional.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    @Test
+    @DisplayName("Deve tentar novamente quando a chamada à API falha por I/O")
+    @SuppressWarnings("unchecked")
+    void deveTentarNovamenteEmFalhaDeIo() throws Exception {
+        List<RegionalExternaDTO> externas = Collections.singletonList(RegionalExternaDTO.builder()
+                .id(200)
+                .nome("Regional Sul")
+                .build());
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenThrow(new ResourceAccessException("Connection reset"))
+                .thenAnswer(respostaApi(objectMapper.writeValueAsBytes(externas), HttpStatus.OK, new HttpHeaders()));
+        when(regionalSyncRepository.inserirNovas()).thenReturn(1);
 
         RegionalService.SyncResult resultado = regionalService.sincronizarComApiExterna();
 
-        // id_externo=300 é nova (1 inserção)
-        // id_externo=200 teve nome alterado (1 atualização = inativar + criar)
-        // id_externo=100 não está na API (1 inativação)
         assertThat(resultado.inseridos()).isEqualTo(1);
-        assertThat(resultado.atualizados()).isEqualTo(1);
-        assertThat(resultado.inativados()).isEqualTo(1);
+        verify(restTemplate, times(2)).execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class));
+    }
+
+    @Test
+    @DisplayName("Deve não tentar novamente em erro 4xx da API externa")
+    @SuppressWarnings("unchecked")
+    void deveNaoTentarNovamenteEmErroDoCliente() {
+        when(restTemplate.execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", new HttpHeaders(), new byte[0], null));
+
+        assertThatThrownBy(() -> regionalService.sincronizarComApiExterna())
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Erro ao sincronizar com API externa");
+
+        verify(restTemplate, times(1)).execute(anyString(), eq(HttpMethod.GET), any(RequestCallback.class), any(ResponseExtractor.class));
     }
 }
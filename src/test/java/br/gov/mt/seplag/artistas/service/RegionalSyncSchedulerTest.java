@@ -0,0 +1,94 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.dto.SincronizacaoStatusDTO;
+import br.gov.mt.seplag.artistas.exception.SyncInProgressException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RegionalSyncSchedulerTest {
+
+    @Mock
+    private RegionalService regionalService;
+
+    private ExecutorService executor;
+
+    private RegionalSyncScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+        scheduler = new RegionalSyncScheduler(regionalService, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar a execução em andamento em vez de iniciar outra")
+    void deveReaproveitarExecucaoEmAndamento() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        RegionalService.SyncResult resultado = new RegionalService.SyncResult(1, 0, 0, false);
+        when(regionalService.sincronizarComApiExterna()).thenAnswer(invocation -> {
+            liberar.await(5, TimeUnit.SECONDS);
+            return resultado;
+        });
+
+        CompletableFuture<RegionalService.SyncResult> primeira = scheduler.disparar();
+        CompletableFuture<RegionalService.SyncResult> segunda = scheduler.disparar();
+
+        assertThat(segunda).isSameAs(primeira);
+        assertThat(scheduler.status().isEmAndamento()).isTrue();
+
+        liberar.countDown();
+
+        assertThat(primeira.get(5, TimeUnit.SECONDS)).isEqualTo(resultado);
+        verify(regionalService, times(1)).sincronizarComApiExterna();
+    }
+
+    @Test
+    @DisplayName("Deve iniciar nova execução após a anterior terminar e registrar o status")
+    void deveIniciarNovaExecucaoAposConclusao() {
+        when(regionalService.sincronizarComApiExterna())
+                .thenReturn(new RegionalService.SyncResult(2, 1, 0, false));
+
+        scheduler.sincronizar();
+        scheduler.sincronizar();
+
+        SincronizacaoStatusDTO status = scheduler.status();
+        assertThat(status.isEmAndamento()).isFalse();
+        assertThat(status.getInseridos()).isEqualTo(2);
+        assertThat(status.getAtualizados()).isEqualTo(1);
+        assertThat(status.getConcluidaEm()).isNotNull();
+        verify(regionalService, times(2)).sincronizarComApiExterna();
+    }
+
+    @Test
+    @DisplayName("Deve propagar a exceção original e registrar o erro no status")
+    void devePropagarExcecaoOriginal() {
+        when(regionalService.sincronizarComApiExterna())
+                .thenThrow(new SyncInProgressException("Sincronização de regionais em andamento em outra instância"));
+
+        assertThatThrownBy(() -> scheduler.sincronizar())
+                .isInstanceOf(SyncInProgressException.class);
+
+        assertThat(scheduler.status().isEmAndamento()).isFalse();
+        assertThat(scheduler.status().getErro()).contains("outra instância");
+    }
+}
@@ -0,0 +1,137 @@
+package br.gov.mt.seplag.artistas.service;
+
+import br.gov.mt.seplag.artistas.domain.entity.AlbumImagem;
+import br.gov.mt.seplag.artistas.repository.AlbumImagemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ThumbnailServiceTest {
+
+    @Mock
+    private MinioService minioService;
+
+    @Mock
+    private AlbumImagemRepository albumImagemRepository;
+
+    @Mock
+    private CacheInvalidacaoService cacheInvalidacaoService;
+
+    private ExecutorService thumbnailExecutor;
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        thumbnailExecutor = Executors.newSingleThreadExecutor();
+        thumbnailService = new ThumbnailService(minioService, albumImagemRepository, cacheInvalidacaoService, thumbnailExecutor);
+        ReflectionTestUtils.setField(thumbnailService, "tamanhos", List.of(150, 600));
+        ReflectionTestUtils.setField(thumbnailService, "maxPixels", 25_000_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Deve derivar a chave da miniatura ao lado do original")
+    void deveDerivarChaveDaMiniatura() {
+        assertThat(ThumbnailService.chaveMiniatura("album-1/abc.png", 150)).isEqualTo("album-1/thumbs/abc-150.jpg");
+        assertThat(ThumbnailService.chaveMiniatura("album-1/abc", 600)).isEqualTo("album-1/thumbs/abc-600.jpg");
+    }
+
+    @Test
+    @DisplayName("Deve reduzir mantendo a proporção sem ampliar imagens pequenas")
+    void deveRedimensionarMantendoProporcao() {
+        BufferedImage paisagem = new BufferedImage(1200, 600, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage reduzida = ThumbnailService.redimensionar(paisagem, 150);
+        BufferedImage semAmpliar = ThumbnailService.redimensionar(paisagem, 2000);
+
+        assertThat(reduzida.getWidth()).isEqualTo(150);
+        assertThat(reduzida.getHeight()).isEqualTo(75);
+        assertThat(semAmpliar.getWidth()).isEqualTo(1200);
+    }
+
+    @Test
+    @DisplayName("Deve gravar uma miniatura JPEG por tamanho e marcar a imagem")
+    void deveGerarMiniaturas() throws IOException {
+        when(minioService.downloadFile("album-1/abc.png")).thenReturn(new ByteArrayInputStream(png(800, 800)));
+        when(albumImagemRepository.findAlbumIdsByObjectKey("album-1/abc.png")).thenReturn(List.of(1L));
+
+        thumbnailService.gerarMiniaturas("album-1/abc.png");
+
+        ArgumentCaptor<byte[]> conteudo = ArgumentCaptor.forClass(byte[].class);
+        verify(minioService).uploadBytes(eq("album-1/thumbs/abc-150.jpg"), conteudo.capture(), eq("image/jpeg"));
+        verify(minioService).uploadBytes(eq("album-1/thumbs/abc-600.jpg"), any(byte[].class), eq("image/jpeg"));
+        assertThat(ImageIO.read(new ByteArrayInputStream(conteudo.getValue())).getWidth()).isEqualTo(150);
+        verify(albumImagemRepository).marcarMiniaturasGeradas("album-1/abc.png");
+        verify(cacheInvalidacaoService).invalidarAlbuns(List.of(1L));
+    }
+
+    @Test
+    @DisplayName("Não deve marcar a imagem quando o conteúdo não for legível")
+    void naoDeveMarcarQuandoImagemIlegivel() {
+        when(minioService.downloadFile("album-1/abc.webp")).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        thumbnailService.gerarMiniaturas("album-1/abc.webp");
+
+        verify(minioService, never()).uploadBytes(anyString(), any(byte[].class), anyString());
+        verify(albumImagemRepository, never()).marcarMiniaturasGeradas(anyString());
+    }
+
+    @Test
+    @DisplayName("Não deve decodificar imagem com mais pixels que o limite")
+    void naoDeveDecodificarImagemAcimaDoLimite() throws IOException {
+        ReflectionTestUtils.setField(thumbnailService, "maxPixels", 500L * 500);
+        when(minioService.downloadFile("album-1/grande.png")).thenReturn(new ByteArrayInputStream(png(800, 800)));
+
+        thumbnailService.gerarMiniaturas("album-1/grande.png");
+
+        verify(minioService, never()).uploadBytes(anyString(), any(byte[].class), anyString());
+        verify(albumImagemRepository, never()).marcarMiniaturasGeradas(anyString());
+    }
+
+    @Test
+    @DisplayName("Deve expor URLs das miniaturas apenas depois de geradas")
+    void deveExporUrlsApenasDepoisDeGeradas() {
+        AlbumImagem pendente = AlbumImagem.builder().id(1L).objectKey("album-1/abc.png").build();
+        AlbumImagem pronta = AlbumImagem.builder().id(2L).objectKey("album-1/def.png").miniaturasGeradas(true).build();
+        Map<String, String> urls = Map.of(
+                "album-1/thumbs/def-150.jpg", "http://minio/def-150.jpg",
+                "album-1/thumbs/def-600.jpg", "http://minio/def-600.jpg");
+
+        assertThat(thumbnailService.chavesMiniaturas(pendente)).isEmpty();
+        assertThat(thumbnailService.urlsMiniaturas(pendente, urls)).isEmpty();
+        assertThat(thumbnailService.urlsMiniaturas(pronta, urls))
+                .containsEntry(150, "http://minio/def-150.jpg")
+                .containsEntry(600, "http://minio/def-600.jpg");
+    }
+
+    private byte[] png(int largura, int altura) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(largura, altura, BufferedImage.TYPE_INT_RGB), "png", saida);
+        return saida.toByteArray();
+    }
+}